@@ -0,0 +1,95 @@
+package com.fn.sink.kafka.connect;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.connect.sink.SinkTaskContext;
+
+/**
+ * The part of the Connect runtime a task talks to, reduced to a fixed
+ * assignment. Rewinds, timeouts and pauses are only recorded, for a driver
+ * feeding the task to act on.
+ */
+public class BenchmarkSinkTaskContext implements SinkTaskContext {
+
+	private final Set<TopicPartition> assignment;
+	private final Set<TopicPartition> paused = new HashSet<>();
+	private final Map<TopicPartition, Long> offsets = new HashMap<>();
+	private long timeoutMs = -1;
+
+	public BenchmarkSinkTaskContext(Set<TopicPartition> assignment) {
+		this.assignment = Collections.unmodifiableSet(assignment);
+	}
+
+	@Override
+	public Map<String, String> configs() {
+		return new HashMap<>();
+	}
+
+	@Override
+	public void offset(Map<TopicPartition, Long> offsets) {
+		this.offsets.putAll(offsets);
+	}
+
+	@Override
+	public void offset(TopicPartition tp, long offset) {
+		offsets.put(tp, offset);
+	}
+
+	@Override
+	public void timeout(long timeoutMs) {
+		this.timeoutMs = timeoutMs;
+	}
+
+	@Override
+	public Set<TopicPartition> assignment() {
+		return assignment;
+	}
+
+	@Override
+	public void pause(TopicPartition... partitions) {
+		Collections.addAll(paused, partitions);
+	}
+
+	@Override
+	public void resume(TopicPartition... partitions) {
+		for (TopicPartition partition : partitions) {
+			paused.remove(partition);
+		}
+	}
+
+	@Override
+	public void requestCommit() {
+	}
+
+	public boolean isPaused() {
+		return !paused.isEmpty();
+	}
+
+	public boolean isPaused(TopicPartition partition) {
+		return paused.contains(partition);
+	}
+
+	/**
+	 * @return the offsets the task rewound to since the last call
+	 */
+	public Map<TopicPartition, Long> takeOffsets() {
+		Map<TopicPartition, Long> taken = new HashMap<>(offsets);
+		offsets.clear();
+		return taken;
+	}
+
+	/**
+	 * @return the timeout the task asked for since the last call, or -1
+	 */
+	public long takeTimeout() {
+		long taken = timeoutMs;
+		timeoutMs = -1;
+		return taken;
+	}
+
+}
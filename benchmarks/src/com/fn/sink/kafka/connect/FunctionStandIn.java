@@ -0,0 +1,396 @@
+package com.fn.sink.kafka.connect;
+
+import com.google.common.io.ByteStreams;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * An in-process stand-in for an OCI function, for load tests without a
+ * tenancy. Unlike {@link StubFunctionServer} it checks every request the way
+ * the Functions service does: the Authorization signature over the signed
+ * headers (against the public key), the body against x-content-sha256 and
+ * content-length, and the Date against the allowed clock skew. Requests
+ * that fail are answered 401.
+ *
+ * <p>
+ * It then behaves like a function under load: a cold start after it has
+ * been idle, during which every request waits, a random share of 429s
+ * answered straight away, a random share of 502s after the usual latency,
+ * and otherwise a 200 after the latency plus jitter. Records carrying a
+ * {@code "seq":<number>} field are reported to a listener each time a 200 is
+ * sent for them, gzipped bodies included.
+ * </p>
+ */
+public class FunctionStandIn implements AutoCloseable {
+
+	static {
+		// see StubFunctionServer
+		if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+			System.setProperty("sun.net.httpserver.nodelay", "true");
+		}
+	}
+
+	private static final Pattern SIGNATURE_PARAMETER = Pattern.compile("(\\w+)=\"([^\"]*)\"");
+	private static final Pattern SEQ = Pattern.compile("\"seq\":(\\d+)");
+	private static final Duration MAX_CLOCK_SKEW = Duration.ofMinutes(5);
+	private static final byte[] OK = "{\"status\":\"ok\"}".getBytes(StandardCharsets.UTF_8);
+
+	private final Builder settings;
+	private final HttpServer server;
+	private final ExecutorService executor;
+	private final Object coldStartLock = new Object();
+	private long lastInvocationNanos;
+	private long readyNanos;
+	private boolean started;
+
+	private final AtomicLong requests = new AtomicLong();
+	private final AtomicLong succeeded = new AtomicLong();
+	private final AtomicLong throttled = new AtomicLong();
+	private final AtomicLong errors = new AtomicLong();
+	private final AtomicLong rejected = new AtomicLong();
+	private final AtomicLong coldStarts = new AtomicLong();
+
+	private FunctionStandIn(Builder settings) throws IOException {
+		this.settings = settings;
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+		executor = Executors.newFixedThreadPool(settings.concurrency);
+		server.setExecutor(executor);
+		server.createContext("/", exchange -> {
+			try {
+				handle(exchange);
+			} finally {
+				exchange.close();
+			}
+		});
+		server.start();
+	}
+
+	/**
+	 * @param publicKey Verifies the request signatures
+	 * @param keyId The expected key id, {@code <tenancy>/<user>/<fingerprint>}
+	 */
+	public static Builder builder(PublicKey publicKey, String keyId) {
+		return new Builder(publicKey, keyId);
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		requests.incrementAndGet();
+		byte[] body;
+		try (InputStream in = exchange.getRequestBody()) {
+			body = ByteStreams.toByteArray(in);
+		}
+		String failure = verify(exchange, body);
+		if (failure != null) {
+			rejected.incrementAndGet();
+			respond(exchange, 401, "{\"code\":\"NotAuthenticated\",\"message\":\"" + failure + "\"}");
+			return;
+		}
+
+		awaitColdStart();
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		if (random.nextDouble() < settings.throttleRate) {
+			throttled.incrementAndGet();
+			respond(exchange, 429, "{\"code\":\"TooManyRequests\",\"message\":\"Too many requests\"}");
+			return;
+		}
+		sleep(settings.latencyMs + (settings.jitterMs > 0 ? random.nextLong(settings.jitterMs + 1) : 0));
+		if (random.nextDouble() < settings.errorRate) {
+			errors.incrementAndGet();
+			respond(exchange, 502, "{\"code\":\"FunctionInvokeBackendConnectionError\",\"message\":\"Simulated failure\"}");
+			return;
+		}
+
+		succeeded.incrementAndGet();
+		if (settings.acknowledged != null) {
+			byte[] content = "gzip".equals(exchange.getRequestHeaders().getFirst("Content-Encoding")) ? gunzip(body) : body;
+			// ISO-8859-1 keeps length-prefixed batches decodable
+			Matcher seq = SEQ.matcher(new String(content, StandardCharsets.ISO_8859_1));
+			while (seq.find()) {
+				settings.acknowledged.accept(Long.parseLong(seq.group(1)));
+			}
+		}
+		exchange.getResponseHeaders().add("Content-Type", "application/json");
+		exchange.sendResponseHeaders(200, OK.length);
+		exchange.getResponseBody().write(OK);
+	}
+
+	/**
+	 * @return why the request would be refused, or null if it is correctly
+	 * signed
+	 */
+	private String verify(HttpExchange exchange, byte[] body) {
+		Headers headers = exchange.getRequestHeaders();
+		String authorization = headers.getFirst("Authorization");
+		if (authorization == null || !authorization.startsWith("Signature ")) {
+			return "missing signature";
+		}
+		Map<String, String> parameters = new HashMap<>();
+		Matcher parameter = SIGNATURE_PARAMETER.matcher(authorization);
+		while (parameter.find()) {
+			parameters.put(parameter.group(1), parameter.group(2));
+		}
+		if (!settings.keyId.equals(parameters.get("keyId"))) {
+			return "unknown keyId " + parameters.get("keyId");
+		}
+		if (!"rsa-sha256".equals(parameters.get("algorithm"))) {
+			return "unsupported algorithm " + parameters.get("algorithm");
+		}
+		String signed = parameters.get("headers");
+		if (signed == null || parameters.get("signature") == null) {
+			return "incomplete signature";
+		}
+		for (String required : new String[] { "date", "(request-target)", "host", "content-length", "content-type", "x-content-sha256" }) {
+			if (!(" " + signed + " ").contains(" " + required + " ")) {
+				return required + " is not signed";
+			}
+		}
+
+		StringBuilder signingString = new StringBuilder();
+		for (String name : signed.split(" ")) {
+			if (signingString.length() > 0) {
+				signingString.append('\n');
+			}
+			if (name.equals("(request-target)")) {
+				signingString.append(name).append(": ").append(exchange.getRequestMethod().toLowerCase())
+						.append(' ').append(exchange.getRequestURI().getRawPath());
+				if (exchange.getRequestURI().getRawQuery() != null) {
+					signingString.append('?').append(exchange.getRequestURI().getRawQuery());
+				}
+			} else {
+				if (headers.get(name) == null || headers.get(name).size() != 1) {
+					return "expected one " + name + " header";
+				}
+				signingString.append(name).append(": ").append(headers.getFirst(name));
+			}
+		}
+		try {
+			Signature verifier = Signature.getInstance("SHA256withRSA");
+			verifier.initVerify(settings.publicKey);
+			verifier.update(signingString.toString().getBytes(StandardCharsets.UTF_8));
+			if (!verifier.verify(Base64.getDecoder().decode(parameters.get("signature")))) {
+				return "signature does not match";
+			}
+			String sha256 = Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-256").digest(body));
+			if (!sha256.equals(headers.getFirst("x-content-sha256"))) {
+				return "x-content-sha256 does not match the body";
+			}
+		} catch (GeneralSecurityException | IllegalArgumentException e) {
+			return "cannot verify signature: " + e.getMessage();
+		}
+		if (!Integer.toString(body.length).equals(headers.getFirst("content-length"))) {
+			return "content-length does not match the body";
+		}
+		try {
+			ZonedDateTime date = ZonedDateTime.parse(headers.getFirst("date"), DateTimeFormatter.RFC_1123_DATE_TIME);
+			if (Duration.between(date, ZonedDateTime.now()).abs().compareTo(MAX_CLOCK_SKEW) > 0) {
+				return "date is outside the allowed clock skew";
+			}
+		} catch (DateTimeParseException e) {
+			return "invalid date";
+		}
+		return null;
+	}
+
+	/**
+	 * The first request, and the first after an idle period, starts the
+	 * function; requests arriving meanwhile wait for it too.
+	 */
+	private void awaitColdStart() {
+		if (settings.coldStartMs <= 0) {
+			return;
+		}
+		long now = System.nanoTime();
+		long readyAt;
+		synchronized (coldStartLock) {
+			if (!started || now - lastInvocationNanos > TimeUnit.MILLISECONDS.toNanos(settings.idleTimeoutMs)) {
+				readyNanos = now + TimeUnit.MILLISECONDS.toNanos(settings.coldStartMs);
+				coldStarts.incrementAndGet();
+				started = true;
+			}
+			lastInvocationNanos = now;
+			readyAt = readyNanos;
+		}
+		sleep(TimeUnit.NANOSECONDS.toMillis(readyAt - now));
+	}
+
+	private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+		byte[] response = json.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().add("Content-Type", "application/json");
+		exchange.sendResponseHeaders(status, response.length);
+		exchange.getResponseBody().write(response);
+	}
+
+	private static byte[] gunzip(byte[] body) throws IOException {
+		try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+			return ByteStreams.toByteArray(in);
+		}
+	}
+
+	private static void sleep(long ms) {
+		if (ms <= 0) {
+			return;
+		}
+		try {
+			Thread.sleep(ms);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * @return the URL to configure as function_url
+	 */
+	public String functionUrl() {
+		InetSocketAddress address = server.getAddress();
+		return "http://" + address.getHostString() + ":" + address.getPort() + "/invoke";
+	}
+
+	public long requests() {
+		return requests.get();
+	}
+
+	public long succeeded() {
+		return succeeded.get();
+	}
+
+	public long throttled() {
+		return throttled.get();
+	}
+
+	public long errors() {
+		return errors.get();
+	}
+
+	/**
+	 * @return the number of requests refused for a missing or invalid
+	 * signature
+	 */
+	public long rejected() {
+		return rejected.get();
+	}
+
+	public long coldStarts() {
+		return coldStarts.get();
+	}
+
+	@Override
+	public void close() {
+		server.stop(0);
+		executor.shutdownNow();
+		try {
+			executor.awaitTermination(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	public static class Builder {
+
+		private final PublicKey publicKey;
+		private final String keyId;
+		private long latencyMs = 20;
+		private long jitterMs;
+		private double throttleRate;
+		private double errorRate;
+		private long coldStartMs;
+		private long idleTimeoutMs = 30000;
+		private int concurrency = 64;
+		private LongConsumer acknowledged;
+
+		private Builder(PublicKey publicKey, String keyId) {
+			this.publicKey = publicKey;
+			this.keyId = keyId;
+		}
+
+		public Builder latencyMs(long latencyMs) {
+			this.latencyMs = latencyMs;
+			return this;
+		}
+
+		/**
+		 * @param jitterMs Up to this much is added to the latency, uniformly
+		 */
+		public Builder jitterMs(long jitterMs) {
+			this.jitterMs = jitterMs;
+			return this;
+		}
+
+		/**
+		 * @param throttleRate Share of requests answered 429, 0 to 1
+		 */
+		public Builder throttleRate(double throttleRate) {
+			this.throttleRate = throttleRate;
+			return this;
+		}
+
+		/**
+		 * @param errorRate Share of requests answered 502, 0 to 1
+		 */
+		public Builder errorRate(double errorRate) {
+			this.errorRate = errorRate;
+			return this;
+		}
+
+		/**
+		 * @param coldStartMs How long starting the function takes
+		 * @param idleTimeoutMs How long the function stays warm without
+		 * requests
+		 */
+		public Builder coldStart(long coldStartMs, long idleTimeoutMs) {
+			this.coldStartMs = coldStartMs;
+			this.idleTimeoutMs = idleTimeoutMs;
+			return this;
+		}
+
+		/**
+		 * @param concurrency Number of requests served at the same time
+		 */
+		public Builder concurrency(int concurrency) {
+			this.concurrency = concurrency;
+			return this;
+		}
+
+		/**
+		 * @param acknowledged Called with the seq of every record in a
+		 * request answered 200, from the server's threads
+		 */
+		public Builder onAcknowledged(LongConsumer acknowledged) {
+			this.acknowledged = acknowledged;
+			return this;
+		}
+
+		public FunctionStandIn start() throws IOException {
+			return new FunctionStandIn(this);
+		}
+
+	}
+
+}
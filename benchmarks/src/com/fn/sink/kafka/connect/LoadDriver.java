@@ -0,0 +1,363 @@
+package com.fn.sink.kafka.connect;
+
+import com.fn.sink.kafka.connect.http.BenchmarkKeys;
+
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.errors.RetriableException;
+import org.apache.kafka.connect.sink.SinkRecord;
+
+/**
+ * Load test of a {@link FnInvocationTask} against a {@link FunctionStandIn},
+ * without a tenancy or a Kafka cluster. Synthetic records are produced at a
+ * target rate and fed to put the way the Connect runtime does: polls of at
+ * most max_poll_records that skip paused partitions, the same batch again
+ * after a {@link RetriableException}, rewinds and timeouts requested through
+ * the context, and a preCommit every commit_interval_ms.
+ *
+ * <p>
+ * At the end it reports the achieved throughput, the latency from each
+ * record's scheduled production time to the first 200 for it, records
+ * acknowledged more than once, records that were committed before they had
+ * been acknowledged (lost, as a restart at that commit would skip them;
+ * dead-lettered records included) and records not acknowledged at all. It
+ * exits with status 1
+ * if any record was lost or undelivered, or any request failed signature
+ * verification, so it can gate CI.
+ * </p>
+ *
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar com.fn.sink.kafka.connect.LoadDriver \
+ *     rate=2000 duration_s=60 error_rate=0.01 invocation_mode=async max_in_flight=64
+ * </pre>
+ *
+ * Options other than those of the driver and the stand-in, listed in
+ * {@link #DEFAULTS}, are passed to the task as connector configuration.
+ */
+public final class LoadDriver {
+
+	private static final String TOPIC = "load";
+	private static final Map<String, String> DEFAULTS = new HashMap<>();
+
+	static {
+		// the driver
+		DEFAULTS.put("rate", "1000");
+		DEFAULTS.put("duration_s", "30");
+		DEFAULTS.put("partitions", "8");
+		DEFAULTS.put("value_bytes", "512");
+		DEFAULTS.put("max_poll_records", "500");
+		DEFAULTS.put("commit_interval_ms", "1000");
+		DEFAULTS.put("drain_timeout_s", "60");
+		// the stand-in function
+		DEFAULTS.put("latency_ms", "20");
+		DEFAULTS.put("jitter_ms", "0");
+		DEFAULTS.put("throttle_rate", "0");
+		DEFAULTS.put("error_rate", "0");
+		DEFAULTS.put("cold_start_ms", "0");
+		DEFAULTS.put("idle_timeout_ms", "30000");
+		DEFAULTS.put("concurrency", "64");
+	}
+
+	private final double rate;
+	private final int partitions;
+	private final int total;
+	private final long durationNanos;
+	private final int maxPollRecords;
+	private final long commitIntervalMs;
+	private final long drainTimeoutNanos;
+	private final String padding;
+
+	private final AtomicIntegerArray acks;
+	private final AtomicLongArray firstAckNanos;
+	private final long[] positions;
+	private final long[] committed;
+	private final long[] checked;
+	private int lost;
+	private final Map<TopicPartition, OffsetAndMetadata> currentOffsets = new HashMap<>();
+	private long startNanos;
+
+	private LoadDriver(Map<String, String> options) {
+		rate = Double.parseDouble(options.get("rate"));
+		partitions = Integer.parseInt(options.get("partitions"));
+		long seconds = Long.parseLong(options.get("duration_s"));
+		long records = (long) (rate * seconds);
+		if (records <= 0 || records > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("rate * duration_s must be between 1 and " + Integer.MAX_VALUE);
+		}
+		total = (int) records;
+		durationNanos = TimeUnit.SECONDS.toNanos(seconds);
+		maxPollRecords = Integer.parseInt(options.get("max_poll_records"));
+		commitIntervalMs = Long.parseLong(options.get("commit_interval_ms"));
+		drainTimeoutNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(options.get("drain_timeout_s")));
+		char[] pad = new char[Integer.parseInt(options.get("value_bytes"))];
+		Arrays.fill(pad, 'x');
+		padding = new String(pad);
+		acks = new AtomicIntegerArray(total);
+		firstAckNanos = new AtomicLongArray(total);
+		positions = new long[partitions];
+		committed = new long[partitions];
+		checked = new long[partitions];
+	}
+
+	public static void main(String[] args) throws Exception {
+		Map<String, String> options = new HashMap<>(DEFAULTS);
+		Map<String, String> props = new HashMap<>();
+		for (String arg : args) {
+			int equals = arg.indexOf('=');
+			if (equals <= 0) {
+				System.err.println("Expected <option>=<value>, got " + arg);
+				System.exit(2);
+			}
+			String name = arg.substring(0, equals);
+			(DEFAULTS.containsKey(name) ? options : props).put(name, arg.substring(equals + 1));
+		}
+		System.exit(new LoadDriver(options).run(options, props) ? 0 : 1);
+	}
+
+	private boolean run(Map<String, String> options, Map<String, String> props) throws Exception {
+		KeyPair keys = BenchmarkKeys.generateKeyPair();
+		Path key = BenchmarkKeys.writePrivateKey(keys.getPrivate());
+		try (FunctionStandIn function = FunctionStandIn.builder(keys.getPublic(), BenchmarkKeys.API_KEY)
+				.latencyMs(Long.parseLong(options.get("latency_ms")))
+				.jitterMs(Long.parseLong(options.get("jitter_ms")))
+				.throttleRate(Double.parseDouble(options.get("throttle_rate")))
+				.errorRate(Double.parseDouble(options.get("error_rate")))
+				.coldStart(Long.parseLong(options.get("cold_start_ms")), Long.parseLong(options.get("idle_timeout_ms")))
+				.concurrency(Integer.parseInt(options.get("concurrency")))
+				.onAcknowledged(this::acknowledged)
+				.start()) {
+
+			Map<String, String> config = new HashMap<>();
+			config.put("name", "fn-sink-load");
+			config.put(FnInvocationConfig.TENANT_OCID_CONFIG, BenchmarkKeys.TENANT_OCID);
+			config.put(FnInvocationConfig.USER_OCID_CONFIG, BenchmarkKeys.USER_OCID);
+			config.put(FnInvocationConfig.PUBLIC_KEY_FINGERPRINT_CONFIG, BenchmarkKeys.FINGERPRINT);
+			config.put(FnInvocationConfig.PRIVATE_KEY_CONFIG, key.toString());
+			config.put(FnInvocationConfig.FUNCTION_URL_CONFIG, function.functionUrl());
+			config.putAll(props);
+
+			Set<TopicPartition> assignment = new HashSet<>();
+			for (int partition = 0; partition < partitions; partition++) {
+				assignment.add(new TopicPartition(TOPIC, partition));
+			}
+			BenchmarkSinkTaskContext context = new BenchmarkSinkTaskContext(assignment);
+			FnInvocationTask task = new FnInvocationTask();
+			task.initialize(context);
+			task.start(config);
+			task.open(assignment);
+			try {
+				feed(task, context);
+			} finally {
+				task.close(assignment);
+				task.stop();
+			}
+			return report(function);
+		}
+	}
+
+	/**
+	 * The Connect runtime's loop for one task, until every record is
+	 * committed or the drain timeout passes.
+	 */
+	private void feed(FnInvocationTask task, BenchmarkSinkTaskContext context) {
+		startNanos = System.nanoTime();
+		long nextCommitNanos = startNanos + TimeUnit.MILLISECONDS.toNanos(commitIntervalMs);
+		List<SinkRecord> retry = null;
+		while (true) {
+			// as in the runtime, offsets are committed before the poll that
+			// seeks to the task's rewinds
+			long now = System.nanoTime();
+			if (now >= nextCommitNanos) {
+				commit(task);
+				nextCommitNanos = now + TimeUnit.MILLISECONDS.toNanos(commitIntervalMs);
+				if (allCommitted()) {
+					return;
+				}
+			}
+			if (now - startNanos > durationNanos + drainTimeoutNanos) {
+				commit(task);
+				return;
+			}
+
+			context.takeOffsets().forEach((partition, offset) -> {
+				positions[partition.partition()] = offset;
+				currentOffsets.put(partition, new OffsetAndMetadata(offset));
+			});
+			long waitMs = Math.max(0, TimeUnit.NANOSECONDS.toMillis(nextCommitNanos - now));
+			long timeoutMs = context.takeTimeout();
+			if (timeoutMs > 0) {
+				waitMs = Math.min(waitMs, timeoutMs);
+			}
+
+			List<SinkRecord> batch;
+			if (retry != null) {
+				sleep(waitMs);
+				batch = retry;
+			} else {
+				batch = poll(context, waitMs);
+			}
+			try {
+				task.put(batch);
+				// as in the runtime, any batch put without an exception moves
+				// the offsets past it, a batch delivered again included
+				for (SinkRecord record : batch) {
+					currentOffsets.put(new TopicPartition(record.topic(), record.kafkaPartition()),
+							new OffsetAndMetadata(record.kafkaOffset() + 1));
+				}
+				retry = null;
+			} catch (RetriableException e) {
+				retry = batch;
+			}
+		}
+	}
+
+	private List<SinkRecord> poll(BenchmarkSinkTaskContext context, long waitMs) {
+		List<SinkRecord> batch = fetch(context);
+		if (batch.isEmpty() && waitMs > 0) {
+			long untilNextMs = TimeUnit.NANOSECONDS.toMillis(scheduledNanos(due()) - System.nanoTime());
+			// nothing due yet, or only in paused partitions
+			sleep(untilNextMs > 0 ? Math.min(waitMs, untilNextMs) : waitMs);
+			batch = fetch(context);
+		}
+		return batch;
+	}
+
+	private List<SinkRecord> fetch(BenchmarkSinkTaskContext context) {
+		int due = due();
+		List<SinkRecord> batch = new ArrayList<>();
+		for (int partition = 0; partition < partitions && batch.size() < maxPollRecords; partition++) {
+			TopicPartition tp = new TopicPartition(TOPIC, partition);
+			if (context.isPaused(tp)) {
+				continue;
+			}
+			long end = endOffset(partition, due);
+			while (positions[partition] < end && batch.size() < maxPollRecords) {
+				batch.add(record(partition, positions[partition]++));
+			}
+		}
+		return batch;
+	}
+
+	private void commit(FnInvocationTask task) {
+		Map<TopicPartition, OffsetAndMetadata> offsets = task.preCommit(new HashMap<>(currentOffsets));
+		offsets.forEach((partition, offset) -> {
+			int p = partition.partition();
+			committed[p] = offset.offset();
+			// preCommit has flushed, so everything below the commit should
+			// have been acknowledged by now
+			for (; checked[p] < offset.offset(); checked[p]++) {
+				long seq = checked[p] * partitions + p;
+				if (seq < total && acks.get((int) seq) == 0) {
+					lost++;
+				}
+			}
+		});
+	}
+
+	private boolean allCommitted() {
+		for (int partition = 0; partition < partitions; partition++) {
+			if (committed[partition] < endOffset(partition, total)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return the number of records produced so far
+	 */
+	private int due() {
+		long elapsed = System.nanoTime() - startNanos;
+		return (int) Math.min(total, (long) (elapsed * rate / TimeUnit.SECONDS.toNanos(1)) + 1);
+	}
+
+	private long scheduledNanos(long seq) {
+		return startNanos + (long) (seq * TimeUnit.SECONDS.toNanos(1) / rate);
+	}
+
+	/**
+	 * @return the offset after the last of the first {@code count} records in
+	 * a partition; records are spread round-robin, so seq = offset *
+	 * partitions + partition
+	 */
+	private long endOffset(int partition, int count) {
+		return (count - partition + partitions - 1) / partitions;
+	}
+
+	private SinkRecord record(int partition, long offset) {
+		long seq = offset * partitions + partition;
+		String value = "{\"seq\":" + seq + ",\"padding\":\"" + padding + "\"}";
+		return new SinkRecord(TOPIC, partition, Schema.STRING_SCHEMA, "key-" + (seq % 1000), null, value, offset);
+	}
+
+	private void acknowledged(long seq) {
+		if (seq < total && acks.getAndIncrement((int) seq) == 0) {
+			firstAckNanos.set((int) seq, System.nanoTime());
+		}
+	}
+
+	private boolean report(FunctionStandIn function) {
+		LogLinearHistogram latencyMicros = new LogLinearHistogram();
+		int acknowledged = 0;
+		int duplicated = 0;
+		long extraAcks = 0;
+		long lastAckNanos = startNanos;
+		for (int seq = 0; seq < total; seq++) {
+			int count = acks.get(seq);
+			if (count == 0) {
+				continue;
+			}
+			acknowledged++;
+			if (count > 1) {
+				duplicated++;
+				extraAcks += count - 1;
+			}
+			long ackNanos = firstAckNanos.get(seq);
+			lastAckNanos = Math.max(lastAckNanos, ackNanos);
+			latencyMicros.record(Math.max(0, TimeUnit.NANOSECONDS.toMicros(ackNanos - scheduledNanos(seq))));
+		}
+		int undelivered = total - acknowledged;
+		double seconds = Math.max(1, lastAckNanos - startNanos) / 1e9;
+
+		System.out.printf("Target         %.1f records/s, %d records over %d s%n", rate, total,
+				TimeUnit.NANOSECONDS.toSeconds(durationNanos));
+		System.out.printf("Achieved       %.1f records/s, %d records acknowledged in %.1f s%n", acknowledged / seconds,
+				acknowledged, seconds);
+		System.out.printf("Latency (ms)   p50 %.1f  p90 %.1f  p99 %.1f  p99.9 %.1f  max %.1f%n",
+				latencyMicros.percentile(0.5) / 1e3, latencyMicros.percentile(0.9) / 1e3,
+				latencyMicros.percentile(0.99) / 1e3, latencyMicros.percentile(0.999) / 1e3, latencyMicros.max() / 1e3);
+		System.out.printf("Duplicates     %d records acknowledged more than once, %d extra%n", duplicated, extraAcks);
+		System.out.printf("Lost           %d records committed before they were acknowledged%n", lost);
+		System.out.printf("Undelivered    %d records never acknowledged%n", undelivered);
+		System.out.printf("Function       %d requests: %d ok, %d throttled, %d failed, %d rejected signatures, %d cold starts%n",
+				function.requests(), function.succeeded(), function.throttled(), function.errors(), function.rejected(),
+				function.coldStarts());
+		return lost == 0 && undelivered == 0 && function.rejected() == 0;
+	}
+
+	private static void sleep(long ms) {
+		if (ms <= 0) {
+			return;
+		}
+		try {
+			Thread.sleep(ms);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
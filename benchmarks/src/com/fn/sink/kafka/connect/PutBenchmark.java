@@ -0,0 +1,144 @@
+package com.fn.sink.kafka.connect;
+
+import com.fn.sink.kafka.connect.http.BenchmarkKeys;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A full {@link FnInvocationTask#put} of a poll's worth of records, followed
+ * by the flush the framework does before committing, against a
+ * {@link StubFunctionServer}. {@link #throughput} reports records per second;
+ * {@link #latency} samples the time of a whole put and flush, whose p99 is in
+ * the results.
+ *
+ * <p>
+ * put is only ever called from one thread, so concurrency comes from
+ * invocation_mode and max_in_flight, not from benchmark threads.
+ * </p>
+ */
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PutBenchmark {
+
+	static final int RECORDS = 500;
+	private static final int PARTITIONS = 8;
+	private static final String TOPIC = "benchmark";
+
+	@Param({ "sync", "async", "ordered" })
+	public String invocationMode;
+
+	@Param({ "1", "16", "64" })
+	public int maxInFlight;
+
+	@Param({ "1", "50" })
+	public int batchMaxRecords;
+
+	@Param({ "2" })
+	public long latencyMs;
+
+	@Param({ "512" })
+	public int valueBytes;
+
+	private StubFunctionServer server;
+	private FnInvocationTask task;
+	private List<SinkRecord> records;
+	private Map<TopicPartition, OffsetAndMetadata> offsets;
+
+	@Setup
+	public void setUp() throws Exception {
+		server = new StubFunctionServer(latencyMs, Math.max(maxInFlight, 4));
+		Path key = BenchmarkKeys.writePrivateKey();
+
+		Map<String, String> props = new HashMap<>();
+		props.put("name", "fn-sink-benchmark");
+		props.put(FnInvocationConfig.TENANT_OCID_CONFIG, BenchmarkKeys.TENANT_OCID);
+		props.put(FnInvocationConfig.USER_OCID_CONFIG, BenchmarkKeys.USER_OCID);
+		props.put(FnInvocationConfig.PUBLIC_KEY_FINGERPRINT_CONFIG, BenchmarkKeys.FINGERPRINT);
+		props.put(FnInvocationConfig.PRIVATE_KEY_CONFIG, key.toString());
+		props.put(FnInvocationConfig.FUNCTION_URL_CONFIG, server.functionUrl());
+		props.put(FnInvocationConfig.INVOCATION_MODE_CONFIG, invocationMode);
+		props.put(FnInvocationConfig.MAX_IN_FLIGHT_CONFIG, Integer.toString(maxInFlight));
+		props.put(FnInvocationConfig.HTTP_MAX_CONNECTIONS_CONFIG, Integer.toString(Math.max(maxInFlight, 20)));
+		props.put(FnInvocationConfig.HTTP_MAX_CONNECTIONS_PER_ROUTE_CONFIG, Integer.toString(Math.max(maxInFlight, 20)));
+		props.put(FnInvocationConfig.ORDERED_LANES_PER_PARTITION_CONFIG, Integer.toString(Math.max(1, maxInFlight / PARTITIONS)));
+		props.put(FnInvocationConfig.BATCH_MAX_RECORDS_CONFIG, Integer.toString(batchMaxRecords));
+
+		Set<TopicPartition> assignment = new HashSet<>();
+		offsets = new HashMap<>();
+		for (int partition = 0; partition < PARTITIONS; partition++) {
+			TopicPartition tp = new TopicPartition(TOPIC, partition);
+			assignment.add(tp);
+			offsets.put(tp, new OffsetAndMetadata(RECORDS / PARTITIONS));
+		}
+		task = new FnInvocationTask();
+		task.initialize(new BenchmarkSinkTaskContext(assignment));
+		task.start(props);
+		task.open(assignment);
+
+		StringBuilder padding = new StringBuilder();
+		while (padding.length() < valueBytes) {
+			padding.append('x');
+		}
+		records = new ArrayList<>(RECORDS);
+		for (int i = 0; i < RECORDS; i++) {
+			String value = "{\"id\":" + i + ",\"padding\":\"" + padding + "\"}";
+			records.add(new SinkRecord(TOPIC, i % PARTITIONS, Schema.STRING_SCHEMA, "key-" + i,
+					null, value, i / PARTITIONS));
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		task.close(new HashSet<>(offsets.keySet()));
+		task.stop();
+		server.close();
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.Throughput)
+	@OutputTimeUnit(TimeUnit.SECONDS)
+	@OperationsPerInvocation(RECORDS)
+	public void throughput() {
+		putAndFlush();
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SampleTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public void latency() {
+		putAndFlush();
+	}
+
+	private void putAndFlush() {
+		task.put(records);
+		task.preCommit(offsets);
+	}
+
+}
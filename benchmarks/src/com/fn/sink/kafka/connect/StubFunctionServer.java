@@ -0,0 +1,90 @@
+package com.fn.sink.kafka.connect;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An in-process HTTP endpoint standing in for an OCI function: it reads the
+ * request, waits a fixed latency and answers 200 with a small JSON body. It
+ * does not check signatures.
+ */
+public class StubFunctionServer implements AutoCloseable {
+
+	static {
+		// otherwise Nagle holds the response body back until the client's
+		// delayed ACK, adding about 40 ms to every keep-alive invocation
+		if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+			System.setProperty("sun.net.httpserver.nodelay", "true");
+		}
+	}
+
+	private static final byte[] RESPONSE = "{\"status\":\"ok\"}".getBytes(StandardCharsets.UTF_8);
+
+	private final HttpServer server;
+	private final ExecutorService executor;
+	private final AtomicLong invocations = new AtomicLong();
+
+	/**
+	 * @param latencyMs Time each invocation takes
+	 * @param threads Number of invocations served concurrently
+	 */
+	public StubFunctionServer(long latencyMs, int threads) throws IOException {
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+		executor = Executors.newFixedThreadPool(threads);
+		server.setExecutor(executor);
+		server.createContext("/", exchange -> {
+			try (InputStream in = exchange.getRequestBody()) {
+				byte[] buf = new byte[8192];
+				while (in.read(buf) != -1) {
+					// drain the payload
+				}
+			}
+			if (latencyMs > 0) {
+				try {
+					Thread.sleep(latencyMs);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			invocations.incrementAndGet();
+			exchange.getResponseHeaders().add("Content-Type", "application/json");
+			exchange.sendResponseHeaders(200, RESPONSE.length);
+			exchange.getResponseBody().write(RESPONSE);
+			exchange.close();
+		});
+		server.start();
+	}
+
+	/**
+	 * @return the URL to configure as function_url
+	 */
+	public String functionUrl() {
+		InetSocketAddress address = server.getAddress();
+		return "http://" + address.getHostString() + ":" + address.getPort() + "/invoke";
+	}
+
+	public long invocations() {
+		return invocations.get();
+	}
+
+	@Override
+	public void close() {
+		server.stop(0);
+		executor.shutdownNow();
+		try {
+			executor.awaitTermination(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
@@ -0,0 +1,48 @@
+package com.fn.sink.kafka.connect.http;
+
+import java.nio.file.Path;
+import java.security.PrivateKey;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Reading the private key from disk, and building the per-method signers on
+ * top of it, as done on task start and on every key rotation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KeyLoadingBenchmark {
+
+    private String keyFile;
+
+    @Setup
+    public void setUp() throws Exception {
+        Path key = BenchmarkKeys.writePrivateKey();
+        keyFile = key.toString();
+    }
+
+    @Benchmark
+    public PrivateKey loadPrivateKey() {
+        return FnClientCommon.loadPrivateKey(keyFile);
+    }
+
+    @Benchmark
+    public FnSigningContext loadSigningContext() {
+        return FnSigningContext.load(BenchmarkKeys.API_KEY, keyFile);
+    }
+
+}
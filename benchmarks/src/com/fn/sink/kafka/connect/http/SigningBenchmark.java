@@ -0,0 +1,89 @@
+package com.fn.sink.kafka.connect.http;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.InputStreamEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link FnClientCommon.RequestSigner#signRequest} for POSTs of varying body
+ * sizes, through each of the ways it hashes a body: in place for
+ * {@link FnPayloadEntity}, streamed through the digest for other repeatable
+ * entities, and copied by getRequestBody for non-repeatable ones.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SigningBenchmark {
+
+    private static final String URL = "https://functions.example.com/20181201/functions/ocid1.fnfunc.oc1..benchmark/actions/invoke";
+
+    @Param({ "0", "1024", "65536", "1048576" })
+    public int bodyBytes;
+
+    @Param({ "payload", "repeatable", "streamed" })
+    public String entity;
+
+    private FnSigningContext signing;
+    private byte[] body;
+
+    @Setup
+    public void setUp() throws Exception {
+        Path key = BenchmarkKeys.writePrivateKey();
+        signing = FnSigningContext.load(BenchmarkKeys.API_KEY, key.toString());
+        body = new byte[bodyBytes];
+        new Random(42).nextBytes(body);
+    }
+
+    @Benchmark
+    public HttpPost signPost() {
+        HttpPost request = new HttpPost(URL);
+        request.setEntity(entity());
+        signing.signRequest(request);
+        return request;
+    }
+
+    /**
+     * Baseline: the signature alone, without a body to hash.
+     */
+    @Benchmark
+    public HttpGet signGet() {
+        HttpGet request = new HttpGet(URL);
+        signing.signRequest(request);
+        return request;
+    }
+
+    private HttpEntity entity() {
+        switch (entity) {
+            case "payload":
+                return FnPayloadEntity.wrap(ByteBuffer.wrap(body), ContentType.APPLICATION_JSON);
+            case "repeatable":
+                return new ByteArrayEntity(body, ContentType.APPLICATION_JSON);
+            default:
+                return new InputStreamEntity(new ByteArrayInputStream(body), body.length, ContentType.APPLICATION_JSON);
+        }
+    }
+
+}
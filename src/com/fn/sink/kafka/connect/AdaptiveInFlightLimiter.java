@@ -0,0 +1,112 @@
+package com.fn.sink.kafka.connect;
+
+import com.fn.sink.kafka.connect.http.FnInvocationException;
+
+import java.io.IOException;
+
+/**
+ * An {@link InFlightLimiter} whose limit follows the function's health, AIMD
+ * style:
+ *
+ * <ul>
+ * <li>throttling (429) or an I/O error cuts the limit by
+ * {@value #BACKOFF_RATIO}, at most once per round trip</li>
+ * <li>so does a recent round trip time more than {@value #RTT_TOLERANCE}
+ * times the long-term one, read as requests queueing at the function</li>
+ * <li>otherwise, while the limit is actually being used, it grows by one per
+ * round trip</li>
+ * </ul>
+ *
+ * <p>
+ * Comparing against a slowly moving long-term average rather than a minimum
+ * lets the limiter follow cold starts and changes of provisioned concurrency
+ * without being fooled by the odd fast response.
+ * </p>
+ */
+class AdaptiveInFlightLimiter extends InFlightLimiter implements AdaptiveInFlightLimiterMBean {
+
+	private static final double BACKOFF_RATIO = 0.9;
+	private static final double RTT_TOLERANCE = 2.0;
+	private static final double SHORT_SMOOTHING = 0.2;
+	private static final double LONG_SMOOTHING = 0.02;
+	private static final double THROTTLE_SMOOTHING = 0.05;
+
+	private final int minLimit;
+	private final int maxLimit;
+	private double estimatedLimit;
+	private double shortRttNanos;
+	private double longRttNanos;
+	private double throttleRate;
+	private long lastDecreaseNanos;
+
+	AdaptiveInFlightLimiter(int minLimit, int initialLimit, int maxLimit) {
+		super(initialLimit);
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		this.estimatedLimit = initialLimit;
+	}
+
+	@Override
+	void onSample(long rttNanos, Throwable error) {
+		boolean throttled = error instanceof FnInvocationException && ((FnInvocationException) error).getStatusCode() == 429;
+		boolean dropped = throttled || error instanceof IOException && !(error instanceof FnInvocationException);
+		long now = System.nanoTime();
+		lock.lock();
+		try {
+			throttleRate += THROTTLE_SMOOTHING * ((throttled ? 1 : 0) - throttleRate);
+			if (!dropped) {
+				if (longRttNanos == 0) {
+					shortRttNanos = rttNanos;
+					longRttNanos = rttNanos;
+				} else {
+					shortRttNanos += SHORT_SMOOTHING * (rttNanos - shortRttNanos);
+					longRttNanos += LONG_SMOOTHING * (rttNanos - longRttNanos);
+				}
+			}
+
+			if (dropped || shortRttNanos > longRttNanos * RTT_TOLERANCE) {
+				// one decrease per round trip, a burst of failures is one signal
+				if (now - lastDecreaseNanos > shortRttNanos) {
+					lastDecreaseNanos = now;
+					estimatedLimit = Math.max(minLimit, estimatedLimit * BACKOFF_RATIO);
+				}
+			} else if (getInFlight() * 2 >= limit) {
+				estimatedLimit = Math.min(maxLimit, estimatedLimit + 1.0 / estimatedLimit);
+			}
+
+			int newLimit = (int) estimatedLimit;
+			if (newLimit != limit) {
+				limit = newLimit;
+				limitChanged();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public int getLimit() {
+		return limit;
+	}
+
+	@Override
+	public int getInFlight() {
+		return super.getInFlight();
+	}
+
+	@Override
+	public double getRttMs() {
+		return shortRttNanos / 1e6;
+	}
+
+	@Override
+	public double getLongTermRttMs() {
+		return longRttNanos / 1e6;
+	}
+
+	@Override
+	public double getThrottleRate() {
+		return throttleRate;
+	}
+
+}
@@ -0,0 +1,27 @@
+package com.fn.sink.kafka.connect;
+
+/**
+ * JMX view of an {@link AdaptiveInFlightLimiter}.
+ */
+public interface AdaptiveInFlightLimiterMBean {
+
+	int getLimit();
+
+	int getInFlight();
+
+	/**
+	 * @return the recent round trip time of an attempt
+	 */
+	double getRttMs();
+
+	/**
+	 * @return the long-term round trip time the recent one is compared with
+	 */
+	double getLongTermRttMs();
+
+	/**
+	 * @return the recent fraction of attempts that were throttled (429)
+	 */
+	double getThrottleRate();
+
+}
@@ -0,0 +1,52 @@
+package com.fn.sink.kafka.connect;
+
+import java.util.List;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.kafka.connect.sink.SinkRecord;
+
+/**
+ * Invokes the function through the non-blocking client with at most as many
+ * invocations outstanding as the {@link InFlightLimiter} allows.
+ * {@link #dispatch} only blocks while that limit is reached.
+ */
+class AsyncInvocationDispatcher implements InvocationDispatcher {
+
+	private final FnInvoker invoker;
+	private final InvocationListener listener;
+	private final InFlightLimiter inFlight;
+
+	AsyncInvocationDispatcher(FnInvoker invoker, InvocationListener listener, InFlightLimiter inFlight) {
+		this.invoker = invoker;
+		this.listener = listener;
+		this.inFlight = inFlight;
+	}
+
+	@Override
+	public void dispatch(List<SinkRecord> records, String functionUrl, HttpEntity payload, Header[] headers) {
+		inFlight.acquire();
+		try {
+			invoker.invoke(functionUrl, payload, headers).whenComplete((response, error) -> {
+				try {
+					if (error == null) {
+						listener.onSuccess(records, response);
+					} else {
+						listener.onFailure(records, RetryingInvoker.unwrap(error));
+					}
+				} finally {
+					inFlight.release();
+				}
+			});
+		} catch (RuntimeException e) {
+			inFlight.release();
+			throw e;
+		}
+	}
+
+	@Override
+	public void awaitInFlight() {
+		inFlight.awaitIdle();
+	}
+
+}
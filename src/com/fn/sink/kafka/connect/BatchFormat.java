@@ -0,0 +1,111 @@
+package com.fn.sink.kafka.connect;
+
+import com.fn.sink.kafka.connect.http.FnPayloadEntity;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.ContentType;
+
+/**
+ * Envelope used to pack several record values into a single invocation body,
+ * selected by {@link FnInvocationConfig#BATCH_FORMAT_CONFIG}.
+ */
+enum BatchFormat {
+
+	/**
+	 * {@code [v1,v2,...]}, each value being a JSON document.
+	 */
+	JSON_ARRAY("json_array", ContentType.APPLICATION_JSON, 2, 1) {
+		@Override
+		void write(List<ByteBuffer> values, ByteBuffer out) {
+			out.put((byte) '[');
+			for (int i = 0; i < values.size(); i++) {
+				if (i > 0) {
+					out.put((byte) ',');
+				}
+				out.put(values.get(i).duplicate());
+			}
+			out.put((byte) ']');
+		}
+	},
+
+	/**
+	 * One JSON document per line.
+	 */
+	NDJSON("ndjson", ContentType.create("application/x-ndjson", "UTF-8"), 0, 1) {
+		@Override
+		void write(List<ByteBuffer> values, ByteBuffer out) {
+			for (ByteBuffer value : values) {
+				out.put(value.duplicate());
+				out.put((byte) '\n');
+			}
+		}
+	},
+
+	/**
+	 * Each value preceded by its length as a 4 byte big-endian integer.
+	 */
+	LENGTH_PREFIXED("length_prefixed", ContentType.APPLICATION_OCTET_STREAM, 0, 4) {
+		@Override
+		void write(List<ByteBuffer> values, ByteBuffer out) {
+			for (ByteBuffer value : values) {
+				out.putInt(value.remaining());
+				out.put(value.duplicate());
+			}
+		}
+	};
+
+	private final String configName;
+	private final ContentType contentType;
+	private final int envelopeBytes;
+	private final int framingBytes;
+
+	BatchFormat(String configName, ContentType contentType, int envelopeBytes, int framingBytes) {
+		this.configName = configName;
+		this.contentType = contentType;
+		this.envelopeBytes = envelopeBytes;
+		this.framingBytes = framingBytes;
+	}
+
+	abstract void write(List<ByteBuffer> values, ByteBuffer out);
+
+	String configName() {
+		return configName;
+	}
+
+	/**
+	 * @return bytes added to the body regardless of the number of values
+	 */
+	int envelopeBytes() {
+		return envelopeBytes;
+	}
+
+	/**
+	 * @return bytes added to the body for each value
+	 */
+	int framingBytes() {
+		return framingBytes;
+	}
+
+	/**
+	 * Encode the values into a body of exactly the right size, which is then
+	 * signed and sent without further copies.
+	 */
+	HttpEntity encode(List<ByteBuffer> values, int valueBytes) {
+		ByteBuffer out = ByteBuffer.allocate(envelopeBytes + framingBytes * values.size() + valueBytes);
+		write(values, out);
+		return new FnPayloadEntity(out.array(), contentType);
+	}
+
+	static BatchFormat forConfigName(String configName) {
+		for (BatchFormat format : values()) {
+			if (format.configName.equals(configName)) {
+				return format;
+			}
+		}
+		throw new IllegalArgumentException("Unknown batch format " + configName);
+	}
+
+}
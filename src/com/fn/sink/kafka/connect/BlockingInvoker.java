@@ -0,0 +1,42 @@
+package com.fn.sink.kafka.connect;
+
+import com.fn.sink.kafka.connect.http.FnHTTPPost;
+import com.fn.sink.kafka.connect.http.FnResponse;
+import com.fn.sink.kafka.connect.http.FnResponseHandler;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+
+/**
+ * Adapts the blocking {@link FnHTTPPost} to {@link FnInvoker}, running each
+ * invocation on the given executor.
+ */
+class BlockingInvoker implements FnInvoker {
+
+	private final FnHTTPPost fnPOST;
+	private final Executor executor;
+	private final FnResponseHandler responseHandler;
+
+	BlockingInvoker(FnHTTPPost fnPOST, Executor executor, FnResponseHandler responseHandler) {
+		this.fnPOST = fnPOST;
+		this.executor = executor;
+		this.responseHandler = responseHandler;
+	}
+
+	@Override
+	public CompletableFuture<FnResponse> invoke(String functionUrl, HttpEntity payload, Header[] headers) {
+		return CompletableFuture.supplyAsync(() -> {
+			try {
+				return fnPOST.invoke(functionUrl, payload, headers, responseHandler);
+			} catch (IOException e) {
+				throw new CompletionException(e);
+			}
+		}, executor);
+	}
+
+}
@@ -0,0 +1,193 @@
+package com.fn.sink.kafka.connect;
+
+import com.fn.sink.kafka.connect.http.FnInvocationException;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Stops calling a function endpoint that is failing or too slow.
+ *
+ * <ul>
+ * <li>CLOSED: calls go through and their outcomes are kept in a sliding
+ * window of the last calls. Once the window is full and the percentage of
+ * failed or slow calls reaches its threshold, the breaker opens</li>
+ * <li>OPEN: calls are refused without being sent, until the open time has
+ * passed</li>
+ * <li>HALF_OPEN: a few probe calls go through, others are still refused. If
+ * the probes do no better than the thresholds the breaker closes, otherwise
+ * it opens again</li>
+ * </ul>
+ *
+ * <p>
+ * Each call is admitted in a generation of the breaker, which moves on with
+ * every state change, and only counts towards that generation: a slow call
+ * sent while closed cannot decide a later half-open breaker's probes.
+ * </p>
+ *
+ * <p>
+ * Failures are I/O errors and 5xx responses: a 4xx says nothing about the
+ * endpoint's health and 429 is left to the in-flight and rate limits.
+ * </p>
+ */
+class CircuitBreaker implements CircuitBreakerMBean {
+
+	private static final Logger LOGGER = Logger.getLogger(CircuitBreaker.class.getName());
+
+	private static final byte FAILED = 1;
+	private static final byte SLOW = 2;
+
+	static final long REFUSED = -1;
+
+	enum State {
+		CLOSED, OPEN, HALF_OPEN
+	}
+
+	private final String functionUrl;
+	private final int failureRateThreshold;
+	private final int slowCallRateThreshold;
+	private final long slowCallNanos;
+	private final long openNanos;
+	private final int probes;
+	private final byte[] window;
+	private int next;
+	private int recorded;
+	private int failures;
+	private int slowCalls;
+	private State state = State.CLOSED;
+	private long openedAt;
+	private int probePermits;
+	private long openCount;
+	private long generation;
+
+	/**
+	 * @param failureRateThreshold Percentage of failed calls that opens the breaker
+	 * @param slowCallRateThreshold Percentage of slow calls that opens the breaker
+	 * @param slowCallMs Calls taking at least this long are slow
+	 * @param windowSize Number of calls the rates are computed over
+	 * @param openMs How long the breaker stays open before probing
+	 * @param probes Number of probe calls while half-open
+	 */
+	CircuitBreaker(String functionUrl, int failureRateThreshold, int slowCallRateThreshold, long slowCallMs,
+			int windowSize, long openMs, int probes) {
+		this.functionUrl = functionUrl;
+		this.failureRateThreshold = failureRateThreshold;
+		this.slowCallRateThreshold = slowCallRateThreshold;
+		this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(slowCallMs);
+		this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMs);
+		this.probes = Math.min(probes, windowSize);
+		this.window = new byte[windowSize];
+	}
+
+	/**
+	 * @return the generation the call is admitted in, to be reported with its
+	 * outcome to {@link #onResult}, or {@link #REFUSED} if it may not be sent
+	 * now
+	 */
+	synchronized long tryAcquire() {
+		if (state == State.OPEN) {
+			if (System.nanoTime() - openedAt < openNanos) {
+				return REFUSED;
+			}
+			transition(State.HALF_OPEN);
+		}
+		if (state == State.HALF_OPEN) {
+			if (probePermits == 0) {
+				return REFUSED;
+			}
+			probePermits--;
+		}
+		return generation;
+	}
+
+	/**
+	 * @param permit The call's generation, from {@link #tryAcquire}
+	 */
+	synchronized void onResult(long permit, long durationNanos, Throwable error) {
+		if (permit != generation) {
+			// sent before the last state change
+			return;
+		}
+		byte outcome = (byte) ((isFailure(error) ? FAILED : 0) | (durationNanos >= slowCallNanos ? SLOW : 0));
+		if (recorded == window.length) {
+			byte evicted = window[next];
+			failures -= evicted & FAILED;
+			slowCalls -= (evicted & SLOW) >> 1;
+		} else {
+			recorded++;
+		}
+		window[next] = outcome;
+		next = (next + 1) % window.length;
+		failures += outcome & FAILED;
+		slowCalls += (outcome & SLOW) >> 1;
+
+		if (state == State.HALF_OPEN) {
+			if (recorded == probes) {
+				transition(overThreshold() ? State.OPEN : State.CLOSED);
+			}
+		} else if (recorded == window.length && overThreshold()) {
+			transition(State.OPEN);
+		}
+	}
+
+	/**
+	 * @return milliseconds until the breaker half-opens, 0 if it is not open
+	 */
+	synchronized long remainingOpenMs() {
+		if (state != State.OPEN) {
+			return 0;
+		}
+		return Math.max(0, TimeUnit.NANOSECONDS.toMillis(openNanos - (System.nanoTime() - openedAt)));
+	}
+
+	private boolean overThreshold() {
+		return failures * 100 >= failureRateThreshold * recorded || slowCalls * 100 >= slowCallRateThreshold * recorded;
+	}
+
+	private void transition(State newState) {
+		LOGGER.info("Circuit breaker for " + functionUrl + " " + state + " -> " + newState
+				+ " (failures " + failures + ", slow calls " + slowCalls + " of " + recorded + ")");
+		state = newState;
+		// each state judges the endpoint on its own calls
+		generation++;
+		next = 0;
+		recorded = 0;
+		failures = 0;
+		slowCalls = 0;
+		if (newState == State.OPEN) {
+			openedAt = System.nanoTime();
+			openCount++;
+		} else if (newState == State.HALF_OPEN) {
+			probePermits = probes;
+		}
+	}
+
+	private static boolean isFailure(Throwable error) {
+		if (error instanceof FnInvocationException) {
+			return ((FnInvocationException) error).getStatusCode() >= 500;
+		}
+		return error instanceof IOException;
+	}
+
+	@Override
+	public synchronized String getState() {
+		return state.name();
+	}
+
+	@Override
+	public synchronized double getFailureRate() {
+		return recorded == 0 ? 0 : failures * 100.0 / recorded;
+	}
+
+	@Override
+	public synchronized double getSlowCallRate() {
+		return recorded == 0 ? 0 : slowCalls * 100.0 / recorded;
+	}
+
+	@Override
+	public synchronized long getOpenCount() {
+		return openCount;
+	}
+
+}
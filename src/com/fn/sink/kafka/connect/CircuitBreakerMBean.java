@@ -0,0 +1,28 @@
+package com.fn.sink.kafka.connect;
+
+/**
+ * JMX view of a {@link CircuitBreaker}.
+ */
+public interface CircuitBreakerMBean {
+
+	/**
+	 * @return CLOSED, OPEN or HALF_OPEN
+	 */
+	String getState();
+
+	/**
+	 * @return the percentage of failed calls in the sliding window
+	 */
+	double getFailureRate();
+
+	/**
+	 * @return the percentage of slow calls in the sliding window
+	 */
+	double getSlowCallRate();
+
+	/**
+	 * @return how many times the breaker opened
+	 */
+	long getOpenCount();
+
+}
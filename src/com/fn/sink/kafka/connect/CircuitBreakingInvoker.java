@@ -0,0 +1,60 @@
+package com.fn.sink.kafka.connect;
+
+import com.fn.sink.kafka.connect.http.FnResponse;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+
+/**
+ * Guards every attempt with the {@link CircuitBreaker} of its function
+ * endpoint, failing fast with a {@link CircuitOpenException} while the
+ * breaker refuses calls. Sits below {@link RetryingInvoker}, which sees the
+ * time left until the breaker half-opens as a Retry-After.
+ */
+class CircuitBreakingInvoker implements FnInvoker {
+
+	private final FnInvoker delegate;
+	private final Function<String, CircuitBreaker> breakerFactory;
+	private final ConcurrentMap<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+	/**
+	 * @param breakerFactory Creates the breaker of an endpoint on its first call
+	 */
+	CircuitBreakingInvoker(FnInvoker delegate, Function<String, CircuitBreaker> breakerFactory) {
+		this.delegate = delegate;
+		this.breakerFactory = breakerFactory;
+	}
+
+	@Override
+	public CompletableFuture<FnResponse> invoke(String functionUrl, HttpEntity payload, Header[] headers) {
+		CircuitBreaker breaker = breakers.computeIfAbsent(functionUrl, breakerFactory);
+		long permit = breaker.tryAcquire();
+		if (permit == CircuitBreaker.REFUSED) {
+			long remainingMs = breaker.remainingOpenMs();
+			CompletableFuture<FnResponse> refused = new CompletableFuture<>();
+			refused.completeExceptionally(new CircuitOpenException(functionUrl, remainingMs > 0 ? remainingMs : -1));
+			return refused;
+		}
+		long start = System.nanoTime();
+		return delegate.invoke(functionUrl, payload, headers).whenComplete((response, error) ->
+				breaker.onResult(permit, System.nanoTime() - start, error == null ? null : RetryingInvoker.unwrap(error)));
+	}
+
+	/**
+	 * @return milliseconds until the first open breaker half-opens while the
+	 * breakers of all endpoints called so far are open, otherwise 0
+	 */
+	long remainingOpenMs() {
+		long remainingMs = Long.MAX_VALUE;
+		for (CircuitBreaker breaker : breakers.values()) {
+			remainingMs = Math.min(remainingMs, breaker.remainingOpenMs());
+		}
+		return breakers.isEmpty() ? 0 : remainingMs;
+	}
+
+}
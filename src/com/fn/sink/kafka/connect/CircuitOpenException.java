@@ -0,0 +1,29 @@
+package com.fn.sink.kafka.connect;
+
+import java.io.IOException;
+
+/**
+ * An invocation refused without being sent because the endpoint's
+ * {@link CircuitBreaker} is open. Retriable: the records are delivered again
+ * once the breaker lets calls through.
+ */
+class CircuitOpenException extends IOException {
+
+	private static final long serialVersionUID = 1L;
+
+	private final long retryAfterMs;
+
+	/**
+	 * @param retryAfterMs Time left until the breaker half-opens, or -1 if it
+	 * is half-open and only waiting for its probes
+	 */
+	CircuitOpenException(String functionUrl, long retryAfterMs) {
+		super("Circuit breaker open for " + functionUrl);
+		this.retryAfterMs = retryAfterMs;
+	}
+
+	long getRetryAfterMs() {
+		return retryAfterMs;
+	}
+
+}
@@ -0,0 +1,186 @@
+package com.fn.sink.kafka.connect;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.kafka.connect.errors.ConnectException;
+import org.apache.kafka.connect.header.ConnectHeaders;
+import org.apache.kafka.connect.sink.SinkRecord;
+
+/**
+ * Sends records that will never be invoked successfully to a
+ * {@link DeadLetterSink}, with the failure reason, HTTP status, number of
+ * attempts and latency as {@code fn.dlq.*} headers.
+ *
+ * <p>
+ * Records are queued and written in batches by a single background thread,
+ * so a failing record never holds up the records behind it. {@link #flush}
+ * waits for everything queued so far, which the task does before committing
+ * offsets. A failed write fails the next flush, so that the offsets of its
+ * records are not committed and the framework delivers them again.
+ * </p>
+ */
+class DeadLetterQueue implements AutoCloseable {
+
+	static final String HEADER_ERROR = "fn.dlq.error";
+	static final String HEADER_STATUS = "fn.dlq.status";
+	static final String HEADER_ATTEMPTS = "fn.dlq.attempts";
+	static final String HEADER_LATENCY_MS = "fn.dlq.latency.ms";
+
+	private static final Logger LOGGER = Logger.getLogger(DeadLetterQueue.class.getName());
+
+	private static final int CAPACITY = 10000;
+	private static final int MAX_BATCH = 500;
+
+	private final DeadLetterSink sink;
+	private final BlockingQueue<DeadLetter> queue = new LinkedBlockingQueue<>(CAPACITY);
+	private final Thread writer;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition written = lock.newCondition();
+	private long queuedCount;
+	private long writtenCount;
+	private volatile Exception writeFailure;
+	private volatile boolean closed;
+
+	DeadLetterQueue(DeadLetterSink sink, String name) {
+		this.sink = sink;
+		this.writer = new Thread(this::run, name);
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	/**
+	 * Queue records for the dead letter queue. Only blocks when the sink
+	 * falls {@value #CAPACITY} records behind.
+	 */
+	void add(List<SinkRecord> records, Throwable error) {
+		for (SinkRecord record : records) {
+			DeadLetter letter = new DeadLetter(withFailureHeaders(record, error), error);
+			lock.lock();
+			try {
+				queuedCount++;
+			} finally {
+				lock.unlock();
+			}
+			try {
+				queue.put(letter);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new ConnectException("Interrupted while queueing a dead letter", e);
+			}
+		}
+	}
+
+	/**
+	 * Block until every record queued so far has been written.
+	 *
+	 * @throws ConnectException if a write failed since the last flush
+	 */
+	void flush() {
+		lock.lock();
+		try {
+			long target = queuedCount;
+			while (writtenCount < target && !closed) {
+				written.await();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ConnectException("Interrupted while flushing dead letters", e);
+		} finally {
+			lock.unlock();
+		}
+		Exception failure = writeFailure;
+		if (failure != null) {
+			writeFailure = null;
+			throw new ConnectException("Failed to write to the dead letter queue", failure);
+		}
+	}
+
+	@Override
+	public void close() {
+		try {
+			flush();
+		} catch (ConnectException e) {
+			LOGGER.log(Level.WARNING, "Failed to flush the dead letter queue", e);
+		}
+		closed = true;
+		writer.interrupt();
+		try {
+			sink.close();
+		} catch (IOException e) {
+			LOGGER.log(Level.WARNING, "Failed to close the dead letter queue", e);
+		}
+	}
+
+	private void run() {
+		List<DeadLetter> batch = new ArrayList<>(MAX_BATCH);
+		while (!closed) {
+			try {
+				batch.add(queue.take());
+			} catch (InterruptedException e) {
+				return;
+			}
+			queue.drainTo(batch, MAX_BATCH - 1);
+			try {
+				sink.write(batch);
+				sink.flush();
+			} catch (IOException | RuntimeException e) {
+				LOGGER.log(Level.SEVERE, "Failed to write " + batch.size() + " record(s) to the dead letter queue", e);
+				writeFailure = e;
+			}
+			lock.lock();
+			try {
+				writtenCount += batch.size();
+				written.signalAll();
+			} finally {
+				lock.unlock();
+			}
+			batch.clear();
+		}
+	}
+
+	private static SinkRecord withFailureHeaders(SinkRecord record, Throwable error) {
+		ConnectHeaders headers = new ConnectHeaders(record.headers());
+		Throwable cause = error instanceof InvocationFailedException && error.getCause() != null ? error.getCause() : error;
+		headers.addString(HEADER_ERROR, cause.toString());
+		if (error instanceof InvocationFailedException) {
+			InvocationFailedException failure = (InvocationFailedException) error;
+			headers.addInt(HEADER_STATUS, failure.getStatusCode());
+			headers.addInt(HEADER_ATTEMPTS, failure.getAttempts());
+			headers.addLong(HEADER_LATENCY_MS, failure.getElapsedMs());
+		} else {
+			headers.addInt(HEADER_STATUS, -1);
+			headers.addInt(HEADER_ATTEMPTS, 0);
+		}
+		return record.newRecord(record.topic(), record.kafkaPartition(), record.keySchema(), record.key(),
+				record.valueSchema(), record.value(), record.timestamp(), headers);
+	}
+
+	static final class DeadLetter {
+
+		private final SinkRecord record;
+		private final Throwable error;
+
+		private DeadLetter(SinkRecord record, Throwable error) {
+			this.record = record;
+			this.error = error;
+		}
+
+		SinkRecord record() {
+			return record;
+		}
+
+		Throwable error() {
+			return error;
+		}
+
+	}
+
+}
@@ -0,0 +1,22 @@
+package com.fn.sink.kafka.connect;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Where a {@link DeadLetterQueue} writes failed records, from its own thread.
+ */
+interface DeadLetterSink extends Closeable {
+
+	/**
+	 * @param letters Failed records, with the failure in their headers
+	 */
+	void write(List<DeadLetterQueue.DeadLetter> letters) throws IOException;
+
+	/**
+	 * Block until every record written so far is stored.
+	 */
+	void flush() throws IOException;
+
+}
@@ -0,0 +1,87 @@
+package com.fn.sink.kafka.connect;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.apache.kafka.connect.sink.SinkTaskContext;
+
+/**
+ * Hands failed records to the framework's errant record reporter, which
+ * writes them to the connector's dead letter queue topic
+ * ({@code errors.deadletterqueue.topic.name}).
+ *
+ * <p>
+ * The reporter only exists on Kafka Connect 2.6 and later, while this
+ * connector builds against the 2.0 API, so it is looked up reflectively.
+ * </p>
+ */
+class ErrantRecordReporterSink implements DeadLetterSink {
+
+	private final Object reporter;
+	private final Method report;
+	private final List<Future<?>> pending = new ArrayList<>();
+
+	private ErrantRecordReporterSink(Object reporter, Method report) {
+		this.reporter = reporter;
+		this.report = report;
+	}
+
+	/**
+	 * @return a sink writing to the connector's dead letter queue, or null if
+	 * the runtime has no errant record reporter or none is configured
+	 */
+	static ErrantRecordReporterSink forContext(SinkTaskContext context) {
+		try {
+			Object reporter = SinkTaskContext.class.getMethod("errantRecordReporter").invoke(context);
+			if (reporter == null) {
+				return null;
+			}
+			Method report = Class.forName("org.apache.kafka.connect.sink.ErrantRecordReporter")
+					.getMethod("report", SinkRecord.class, Throwable.class);
+			return new ErrantRecordReporterSink(reporter, report);
+		} catch (ReflectiveOperationException | LinkageError e) {
+			// older runtime
+			return null;
+		}
+	}
+
+	@Override
+	public void write(List<DeadLetterQueue.DeadLetter> letters) throws IOException {
+		for (DeadLetterQueue.DeadLetter letter : letters) {
+			try {
+				pending.add((Future<?>) report.invoke(reporter, letter.record(), letter.error()));
+			} catch (IllegalAccessException | InvocationTargetException e) {
+				throw new IOException("Failed to report " + letter.record().topic() + "-" + letter.record().kafkaPartition()
+						+ " at offset " + letter.record().kafkaOffset(), e);
+			}
+		}
+	}
+
+	@Override
+	public void flush() throws IOException {
+		try {
+			for (Future<?> future : pending) {
+				future.get();
+			}
+		} catch (ExecutionException e) {
+			throw new IOException("Failed to write to the dead letter queue", e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while writing to the dead letter queue", e);
+		} finally {
+			pending.clear();
+		}
+	}
+
+	@Override
+	public void close() {
+		// owned by the framework
+	}
+
+}
@@ -0,0 +1,70 @@
+package com.fn.sink.kafka.connect;
+
+import com.fn.sink.kafka.connect.http.FnResponse;
+import com.google.gson.JsonObject;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.apache.kafka.connect.sink.SinkRecord;
+
+/**
+ * Appends responses to a local file. Each response is a JSON line with its
+ * source and length, followed by that many bytes of body and a newline, so
+ * that bodies are copied chunk by chunk and need not be escaped.
+ */
+class FileResponseSink implements ResponseSink {
+
+	private final Path path;
+	private final FileOutputStream file;
+	private final BufferedOutputStream out;
+
+	FileResponseSink(Path path) throws IOException {
+		Files.createDirectories(path.toAbsolutePath().getParent());
+		this.path = path;
+		this.file = new FileOutputStream(path.toFile(), true);
+		this.out = new BufferedOutputStream(file);
+	}
+
+	Path path() {
+		return path;
+	}
+
+	@Override
+	public synchronized void write(List<SinkRecord> records, FnResponse response) throws IOException {
+		SinkRecord first = records.get(0);
+		JsonObject json = new JsonObject();
+		json.addProperty(ResponseForwarder.HEADER_SOURCE_TOPIC, first.topic());
+		json.addProperty(ResponseForwarder.HEADER_SOURCE_PARTITION, first.kafkaPartition());
+		json.addProperty(ResponseForwarder.HEADER_SOURCE_OFFSET, first.kafkaOffset());
+		if (records.size() > 1) {
+			json.addProperty(ResponseForwarder.HEADER_SOURCE_LAST_OFFSET, records.get(records.size() - 1).kafkaOffset());
+		}
+		if (first.key() != null) {
+			json.addProperty("key", first.key() instanceof byte[]
+					? new String((byte[]) first.key(), StandardCharsets.UTF_8) : first.key().toString());
+		}
+		json.addProperty("length", response.getLength());
+		out.write(json.toString().getBytes(StandardCharsets.UTF_8));
+		out.write('\n');
+		response.writeTo(out);
+		out.write('\n');
+	}
+
+	@Override
+	public synchronized void flush() throws IOException {
+		out.flush();
+		file.getFD().sync();
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		out.close();
+	}
+
+}
@@ -23,11 +23,237 @@ public final class FnInvocationConfig extends AbstractConfig {
 	public static final String FUNCTION_URL_CONFIG = "function_url";
 	private static final String FUNCTION_URL_CONFIG_DESC = "Function endpoint URL";
 
+	public static final String ROUTING_RULES_CONFIG = "routing_rules";
+	private static final String ROUTING_RULES_CONFIG_DESC = "Rules sending records to other functions, or dropping them, separated by ';'. "
+			+ "Each rule is '<condition> [& <condition>...] -> <function URL | drop>', where a condition is '*' or one of topic, key, "
+			+ "header.<name> or field.<json.path> followed by '=' and a value or '~' and a regular expression. "
+			+ "The first matching rule wins; other records go to function_url";
+
+	public static final String FILTER_CONDITIONS_CONFIG = "filter_conditions";
+	private static final String FILTER_CONDITIONS_CONFIG_DESC = "Conditions on fields of a JSON payload a record must all meet to be invoked, separated by '&'. "
+			+ "Each is '<json.path> <operator> <operand>' with one of =, !=, <, <=, >, >=, 'in (a, b)' or 'not in (a, b)'. "
+			+ "A missing field fails its condition. Empty invokes every record";
+
+	public static final String HTTP_MAX_CONNECTIONS_CONFIG = "http_max_connections";
+	private static final String HTTP_MAX_CONNECTIONS_CONFIG_DESC = "Maximum number of pooled HTTP connections per task";
+
+	public static final String HTTP_MAX_CONNECTIONS_PER_ROUTE_CONFIG = "http_max_connections_per_route";
+	private static final String HTTP_MAX_CONNECTIONS_PER_ROUTE_CONFIG_DESC = "Maximum number of pooled HTTP connections per function host";
+
+	public static final String HTTP_IDLE_EVICTION_MS_CONFIG = "http_idle_eviction_ms";
+	private static final String HTTP_IDLE_EVICTION_MS_CONFIG_DESC = "Pooled connections idle for longer than this are closed";
+
+	public static final String HTTP_CONNECTION_TTL_MS_CONFIG = "http_connection_ttl_ms";
+	private static final String HTTP_CONNECTION_TTL_MS_CONFIG_DESC = "Maximum lifetime of a pooled connection, regardless of keep-alive";
+
+	public static final String INVOCATION_MODE_CONFIG = "invocation_mode";
+	private static final String INVOCATION_MODE_CONFIG_DESC = "How records are invoked: 'sync' one after another, 'async' with up to max_in_flight concurrent invocations, "
+			+ "or 'ordered' in parallel across partitions while keeping order within each partition (or key, see ordered_lanes_per_partition)";
+	public static final String INVOCATION_MODE_SYNC = "sync";
+	public static final String INVOCATION_MODE_ASYNC = "async";
+	public static final String INVOCATION_MODE_ORDERED = "ordered";
+
+	public static final String MAX_IN_FLIGHT_CONFIG = "max_in_flight";
+	private static final String MAX_IN_FLIGHT_CONFIG_DESC = "Maximum number of concurrent invocations per task when not in 'sync' mode";
+
+	public static final String ORDERED_LANES_PER_PARTITION_CONFIG = "ordered_lanes_per_partition";
+	private static final String ORDERED_LANES_PER_PARTITION_CONFIG_DESC = "In 'ordered' mode, number of parallel lanes per partition. "
+			+ "With 1 order is kept per partition; with more, records are spread across lanes by key and order is kept per key";
+
+	public static final String BATCH_MAX_RECORDS_CONFIG = "batch_max_records";
+	private static final String BATCH_MAX_RECORDS_CONFIG_DESC = "Maximum number of records packed into one invocation. 1 disables batching";
+
+	public static final String BATCH_MAX_BYTES_CONFIG = "batch_max_bytes";
+	private static final String BATCH_MAX_BYTES_CONFIG_DESC = "Maximum size of a batched invocation body. A single larger record is sent on its own";
+
+	public static final String BATCH_LINGER_MS_CONFIG = "batch_linger_ms";
+	private static final String BATCH_LINGER_MS_CONFIG_DESC = "Maximum time a partially filled batch waits for more records";
+
+	public static final String BATCH_FORMAT_CONFIG = "batch_format";
+	private static final String BATCH_FORMAT_CONFIG_DESC = "Envelope of a batched invocation body: 'json_array', 'ndjson' (newline-delimited JSON) "
+			+ "or 'length_prefixed' (each value preceded by its 4 byte big-endian length)";
+
+	public static final String REQUEST_COMPRESSION_CONFIG = "request_compression";
+	public static final String REQUEST_COMPRESSION_NONE = "none";
+	public static final String REQUEST_COMPRESSION_GZIP = "gzip";
+	private static final String REQUEST_COMPRESSION_CONFIG_DESC = "Content-Encoding of invocation bodies: 'none' or 'gzip'. "
+			+ "Only enable it for functions that accept gzipped requests";
+
+	public static final String REQUEST_COMPRESSION_MIN_BYTES_CONFIG = "request_compression_min_bytes";
+	private static final String REQUEST_COMPRESSION_MIN_BYTES_CONFIG_DESC = "Invocation bodies smaller than this are sent uncompressed";
+
+	public static final String REQUEST_COMPRESSION_LEVEL_CONFIG = "request_compression_level";
+	private static final String REQUEST_COMPRESSION_LEVEL_CONFIG_DESC = "Deflate level from 1 (fastest) to 9 (smallest)";
+
+	public static final String RETRY_MAX_ATTEMPTS_CONFIG = "retry_max_attempts";
+	private static final String RETRY_MAX_ATTEMPTS_CONFIG_DESC = "Attempts per invocation, including the first, before its records are handed back to the framework for redelivery. "
+			+ "In 'sync' mode records are handed back after the first attempt, retry_backoff_ms later, rather than blocking the task between attempts";
+
+	public static final String RETRY_BACKOFF_MS_CONFIG = "retry_backoff_ms";
+	private static final String RETRY_BACKOFF_MS_CONFIG_DESC = "Initial delay between attempts, doubled on each attempt, with jitter";
+
+	public static final String RETRY_BACKOFF_MAX_MS_CONFIG = "retry_backoff_max_ms";
+	private static final String RETRY_BACKOFF_MAX_MS_CONFIG_DESC = "Maximum delay between attempts. A longer Retry-After hands the records back to the framework instead";
+
+	public static final String ADAPTIVE_CONCURRENCY_CONFIG = "adaptive_concurrency";
+	private static final String ADAPTIVE_CONCURRENCY_CONFIG_DESC = "When not in 'sync' mode, adapt the number of concurrent invocations between "
+			+ "adaptive_concurrency_min and max_in_flight to the function's latency and throttling, starting at max_in_flight. Ignored in 'sync' mode";
+
+	public static final String ADAPTIVE_CONCURRENCY_MIN_CONFIG = "adaptive_concurrency_min";
+	private static final String ADAPTIVE_CONCURRENCY_MIN_CONFIG_DESC = "Lowest number of concurrent invocations the adaptive limit may fall to";
+
+	public static final String RATE_LIMIT_INVOCATIONS_PER_SEC_CONFIG = "rate_limit_invocations_per_sec";
+	private static final String RATE_LIMIT_INVOCATIONS_PER_SEC_CONFIG_DESC = "Maximum invocations per second for the whole connector, split evenly across its tasks. 0 disables the limit";
+
+	public static final String RATE_LIMIT_BYTES_PER_SEC_CONFIG = "rate_limit_bytes_per_sec";
+	private static final String RATE_LIMIT_BYTES_PER_SEC_CONFIG_DESC = "Maximum invocation body bytes per second for the whole connector, split evenly across its tasks. 0 disables the limit";
+
+	public static final String PAYLOAD_BUDGET_BYTES_CONFIG = "payload_budget_bytes";
+	private static final String PAYLOAD_BUDGET_BYTES_CONFIG_DESC = "Maximum payload bytes a task holds in flight or waiting for rate limit tokens. Beyond it the heaviest partitions are paused. 0 disables the budget";
+
+	public static final String PAYLOAD_BUDGET_LOW_WATER_PERCENT_CONFIG = "payload_budget_low_water_percent";
+	private static final String PAYLOAD_BUDGET_LOW_WATER_PERCENT_CONFIG_DESC = "Percentage of payload_budget_bytes below which paused partitions are resumed";
+
+	public static final String SPLIT_TASK_BUDGETS_CONFIG = "split_task_budgets";
+	private static final String SPLIT_TASK_BUDGETS_CONFIG_DESC = "Treat http_max_connections, max_in_flight and payload_budget_bytes as totals for the connector "
+			+ "and split them across its tasks, as the rate limits are";
+
+	public static final String DEDUP_KEY_CONFIG = "dedup_key";
+	private static final String DEDUP_KEY_CONFIG_DESC = "Skip records invoked successfully within dedup_ttl_ms, keyed on 'offset' (topic, partition and offset), "
+			+ "'key' (topic and record key) or 'header.<name>' (topic and header value), and send an idempotency header with every invocation. 'none' disables it";
+
+	public static final String DEDUP_CAPACITY_CONFIG = "dedup_capacity";
+	private static final String DEDUP_CAPACITY_CONFIG_DESC = "Number of recently invoked keys remembered per task, about 12 bytes each, at most 1073741824. The oldest are forgotten first when full";
+
+	public static final String DEDUP_TTL_MS_CONFIG = "dedup_ttl_ms";
+	private static final String DEDUP_TTL_MS_CONFIG_DESC = "How long an invoked key is remembered";
+
+	public static final String DEDUP_IDEMPOTENCY_HEADER_CONFIG = "dedup_idempotency_header";
+	private static final String DEDUP_IDEMPOTENCY_HEADER_CONFIG_DESC = "Request header carrying a stable key of the invoked records, for the function to detect duplicates";
+
+	public static final String DLQ_ENABLED_CONFIG = "dlq_enabled";
+	private static final String DLQ_ENABLED_CONFIG_DESC = "Send records that can never be invoked successfully (non-retriable responses, unserializable values) "
+			+ "to the dead letter queue topic (errors.deadletterqueue.topic.name) on Kafka Connect 2.6 and later, or to a spill file in dlq_spill_dir otherwise";
+
+	public static final String DLQ_SPILL_DIR_CONFIG = "dlq_spill_dir";
+	private static final String DLQ_SPILL_DIR_CONFIG_DESC = "Directory of the dead letter spill files, one JSON record per line, used when the runtime has no errant record reporter";
+
+	public static final String RESPONSE_SINK_CONFIG = "response_sink";
+	public static final String RESPONSE_SINK_NONE = "none";
+	public static final String RESPONSE_SINK_TOPIC = "topic";
+	public static final String RESPONSE_SINK_FILE = "file";
+	private static final String RESPONSE_SINK_CONFIG_DESC = "Where the bodies of successful responses are forwarded, with the source topic, partition, offset and key: "
+			+ "'topic' produces them to response_topic, 'file' appends them to a file in response_dir, 'none' discards them";
+
+	public static final String RESPONSE_TOPIC_CONFIG = "response_topic";
+	private static final String RESPONSE_TOPIC_CONFIG_DESC = "Topic the responses are produced to when response_sink is 'topic'";
+
+	public static final String RESPONSE_BOOTSTRAP_SERVERS_CONFIG = "response_bootstrap_servers";
+	private static final String RESPONSE_BOOTSTRAP_SERVERS_CONFIG_DESC = "Kafka cluster of response_topic";
+
+	// producer settings of response_topic, e.g. response.producer.security.protocol
+	public static final String RESPONSE_PRODUCER_PREFIX = "response.producer.";
+
+	public static final String RESPONSE_DIR_CONFIG = "response_dir";
+	private static final String RESPONSE_DIR_CONFIG_DESC = "Directory of the response files when response_sink is 'file'";
+
+	public static final String RESPONSE_MAX_BYTES_CONFIG = "response_max_bytes";
+	private static final String RESPONSE_MAX_BYTES_CONFIG_DESC = "Maximum size of a forwarded response body. Larger bodies are read and discarded, and logged instead of forwarded";
+
+	public static final String WARMUP_CONNECTIONS_CONFIG = "warmup_connections";
+	private static final String WARMUP_CONNECTIONS_CONFIG_DESC = "Connections opened to each function host when the task starts, ahead of the first records. 0 disables";
+
+	public static final String WARMUP_PAYLOAD_CONFIG = "warmup_payload";
+	private static final String WARMUP_PAYLOAD_CONFIG_DESC = "Body of an invocation sent to every function when the task starts, so cold starts are taken before the first records arrive. "
+			+ "Empty disables";
+
+	public static final String WARMUP_TIMEOUT_MS_CONFIG = "warmup_timeout_ms";
+	private static final String WARMUP_TIMEOUT_MS_CONFIG_DESC = "Maximum time task start waits for warm-up connections and invocations";
+
+	public static final String WARMUP_FUNCTION_URLS_PER_TASK_CONFIG = "warmup_function_urls_per_task";
+	private static final String WARMUP_FUNCTION_URLS_PER_TASK_CONFIG_DESC = "Spread the warm-up of function_url and the routing rule targets across the tasks, each task only warming up its own. "
+			+ "Without it every task warms up every function. Only warm-up is split: every task still invokes, and pools connections to, "
+			+ "whichever functions the records assigned to it are routed to";
+
+	// set by the connector in each task's configuration
+	public static final String TASK_ID_CONFIG = "task_id";
+	public static final String TASK_WARMUP_FUNCTION_URLS_CONFIG = "task_warmup_function_urls";
+
+	public static final String CIRCUIT_BREAKER_ENABLED_CONFIG = "circuit_breaker_enabled";
+	private static final String CIRCUIT_BREAKER_ENABLED_CONFIG_DESC = "Stop invoking a function endpoint that keeps failing or responding slowly, and pause the partitions until it is probed again";
+
+	public static final String CIRCUIT_BREAKER_FAILURE_RATE_THRESHOLD_CONFIG = "circuit_breaker_failure_rate_threshold";
+	private static final String CIRCUIT_BREAKER_FAILURE_RATE_THRESHOLD_CONFIG_DESC = "Percentage of failed calls (I/O errors and 5xx) in the window that opens the circuit breaker";
+
+	public static final String CIRCUIT_BREAKER_SLOW_CALL_RATE_THRESHOLD_CONFIG = "circuit_breaker_slow_call_rate_threshold";
+	private static final String CIRCUIT_BREAKER_SLOW_CALL_RATE_THRESHOLD_CONFIG_DESC = "Percentage of slow calls in the window that opens the circuit breaker";
+
+	public static final String CIRCUIT_BREAKER_SLOW_CALL_MS_CONFIG = "circuit_breaker_slow_call_ms";
+	private static final String CIRCUIT_BREAKER_SLOW_CALL_MS_CONFIG_DESC = "Calls taking at least this long count as slow";
+
+	public static final String CIRCUIT_BREAKER_WINDOW_SIZE_CONFIG = "circuit_breaker_window_size";
+	private static final String CIRCUIT_BREAKER_WINDOW_SIZE_CONFIG_DESC = "Number of most recent calls the failure and slow call rates are computed over";
+
+	public static final String CIRCUIT_BREAKER_OPEN_MS_CONFIG = "circuit_breaker_open_ms";
+	private static final String CIRCUIT_BREAKER_OPEN_MS_CONFIG_DESC = "How long an open circuit breaker refuses calls before letting probes through";
+
+	public static final String CIRCUIT_BREAKER_HALF_OPEN_PROBES_CONFIG = "circuit_breaker_half_open_probes";
+	private static final String CIRCUIT_BREAKER_HALF_OPEN_PROBES_CONFIG_DESC = "Number of probe calls a half-open circuit breaker lets through to decide whether to close again";
+
 	private final String tenantOcid;
 	private final String userOcid;
 	private final String publicFingerprint;
 	private final String privateKeyLocation;
 	private final String functionUrl;
+	private final String routingRules;
+	private final String filterConditions;
+	private final int httpMaxConnections;
+	private final int httpMaxConnectionsPerRoute;
+	private final long httpIdleEvictionMs;
+	private final long httpConnectionTtlMs;
+	private final String invocationMode;
+	private final int maxInFlight;
+	private final int orderedLanesPerPartition;
+	private final int batchMaxRecords;
+	private final int batchMaxBytes;
+	private final long batchLingerMs;
+	private final String batchFormat;
+	private final String requestCompression;
+	private final int requestCompressionMinBytes;
+	private final int requestCompressionLevel;
+	private final int retryMaxAttempts;
+	private final long retryBackoffMs;
+	private final long retryBackoffMaxMs;
+	private final boolean adaptiveConcurrency;
+	private final int adaptiveConcurrencyMin;
+	private final double rateLimitInvocationsPerSec;
+	private final long rateLimitBytesPerSec;
+	private final long payloadBudgetBytes;
+	private final int payloadBudgetLowWaterPercent;
+	private final boolean splitTaskBudgets;
+	private final String dedupKey;
+	private final int dedupCapacity;
+	private final long dedupTtlMs;
+	private final String dedupIdempotencyHeader;
+	private final boolean dlqEnabled;
+	private final String dlqSpillDir;
+	private final String responseSink;
+	private final String responseTopic;
+	private final String responseBootstrapServers;
+	private final Map<String, Object> responseProducerConfig;
+	private final String responseDir;
+	private final int responseMaxBytes;
+	private final int warmupConnections;
+	private final String warmupPayload;
+	private final long warmupTimeoutMs;
+	private final boolean warmupFunctionUrlsPerTask;
+	private final boolean circuitBreakerEnabled;
+	private final int circuitBreakerFailureRateThreshold;
+	private final int circuitBreakerSlowCallRateThreshold;
+	private final long circuitBreakerSlowCallMs;
+	private final int circuitBreakerWindowSize;
+	private final long circuitBreakerOpenMs;
+	private final int circuitBreakerHalfOpenProbes;
 
 	public FnInvocationConfig(Map<String, ?> originals) {
 		super(getConfigDef(), originals);
@@ -36,6 +262,58 @@ public final class FnInvocationConfig extends AbstractConfig {
 		this.publicFingerprint = this.getString(PUBLIC_KEY_FINGERPRINT_CONFIG);
 		this.privateKeyLocation = this.getString(PRIVATE_KEY_CONFIG);
 		this.functionUrl = this.getString(FUNCTION_URL_CONFIG);
+		this.routingRules = this.getString(ROUTING_RULES_CONFIG);
+		this.filterConditions = this.getString(FILTER_CONDITIONS_CONFIG);
+		this.httpMaxConnections = this.getInt(HTTP_MAX_CONNECTIONS_CONFIG);
+		this.httpMaxConnectionsPerRoute = this.getInt(HTTP_MAX_CONNECTIONS_PER_ROUTE_CONFIG);
+		this.httpIdleEvictionMs = this.getLong(HTTP_IDLE_EVICTION_MS_CONFIG);
+		this.httpConnectionTtlMs = this.getLong(HTTP_CONNECTION_TTL_MS_CONFIG);
+		this.invocationMode = this.getString(INVOCATION_MODE_CONFIG);
+		this.maxInFlight = this.getInt(MAX_IN_FLIGHT_CONFIG);
+		this.orderedLanesPerPartition = this.getInt(ORDERED_LANES_PER_PARTITION_CONFIG);
+		this.batchMaxRecords = this.getInt(BATCH_MAX_RECORDS_CONFIG);
+		this.batchMaxBytes = this.getInt(BATCH_MAX_BYTES_CONFIG);
+		this.batchLingerMs = this.getLong(BATCH_LINGER_MS_CONFIG);
+		this.batchFormat = this.getString(BATCH_FORMAT_CONFIG);
+		this.requestCompression = this.getString(REQUEST_COMPRESSION_CONFIG);
+		this.requestCompressionMinBytes = this.getInt(REQUEST_COMPRESSION_MIN_BYTES_CONFIG);
+		this.requestCompressionLevel = this.getInt(REQUEST_COMPRESSION_LEVEL_CONFIG);
+		this.retryMaxAttempts = this.getInt(RETRY_MAX_ATTEMPTS_CONFIG);
+		this.retryBackoffMs = this.getLong(RETRY_BACKOFF_MS_CONFIG);
+		this.retryBackoffMaxMs = this.getLong(RETRY_BACKOFF_MAX_MS_CONFIG);
+		this.adaptiveConcurrency = this.getBoolean(ADAPTIVE_CONCURRENCY_CONFIG);
+		this.adaptiveConcurrencyMin = this.getInt(ADAPTIVE_CONCURRENCY_MIN_CONFIG);
+		this.rateLimitInvocationsPerSec = this.getDouble(RATE_LIMIT_INVOCATIONS_PER_SEC_CONFIG);
+		this.rateLimitBytesPerSec = this.getLong(RATE_LIMIT_BYTES_PER_SEC_CONFIG);
+		this.payloadBudgetBytes = this.getLong(PAYLOAD_BUDGET_BYTES_CONFIG);
+		this.payloadBudgetLowWaterPercent = this.getInt(PAYLOAD_BUDGET_LOW_WATER_PERCENT_CONFIG);
+		this.splitTaskBudgets = this.getBoolean(SPLIT_TASK_BUDGETS_CONFIG);
+		this.dedupKey = this.getString(DEDUP_KEY_CONFIG);
+		this.dedupCapacity = this.getInt(DEDUP_CAPACITY_CONFIG);
+		this.dedupTtlMs = this.getLong(DEDUP_TTL_MS_CONFIG);
+		this.dedupIdempotencyHeader = this.getString(DEDUP_IDEMPOTENCY_HEADER_CONFIG);
+		this.dlqEnabled = this.getBoolean(DLQ_ENABLED_CONFIG);
+		this.dlqSpillDir = this.getString(DLQ_SPILL_DIR_CONFIG);
+		this.responseSink = this.getString(RESPONSE_SINK_CONFIG);
+		this.responseTopic = this.getString(RESPONSE_TOPIC_CONFIG);
+		this.responseBootstrapServers = this.getString(RESPONSE_BOOTSTRAP_SERVERS_CONFIG);
+		this.responseProducerConfig = this.originalsWithPrefix(RESPONSE_PRODUCER_PREFIX);
+		this.responseDir = this.getString(RESPONSE_DIR_CONFIG);
+		this.responseMaxBytes = this.getInt(RESPONSE_MAX_BYTES_CONFIG);
+		if (RESPONSE_SINK_TOPIC.equals(responseSink) && (responseTopic.isEmpty() || responseBootstrapServers.isEmpty())) {
+			throw new ConfigException(RESPONSE_TOPIC_CONFIG, responseTopic, "response_topic and response_bootstrap_servers are required when response_sink is 'topic'");
+		}
+		this.warmupConnections = this.getInt(WARMUP_CONNECTIONS_CONFIG);
+		this.warmupPayload = this.getString(WARMUP_PAYLOAD_CONFIG);
+		this.warmupTimeoutMs = this.getLong(WARMUP_TIMEOUT_MS_CONFIG);
+		this.warmupFunctionUrlsPerTask = this.getBoolean(WARMUP_FUNCTION_URLS_PER_TASK_CONFIG);
+		this.circuitBreakerEnabled = this.getBoolean(CIRCUIT_BREAKER_ENABLED_CONFIG);
+		this.circuitBreakerFailureRateThreshold = this.getInt(CIRCUIT_BREAKER_FAILURE_RATE_THRESHOLD_CONFIG);
+		this.circuitBreakerSlowCallRateThreshold = this.getInt(CIRCUIT_BREAKER_SLOW_CALL_RATE_THRESHOLD_CONFIG);
+		this.circuitBreakerSlowCallMs = this.getLong(CIRCUIT_BREAKER_SLOW_CALL_MS_CONFIG);
+		this.circuitBreakerWindowSize = this.getInt(CIRCUIT_BREAKER_WINDOW_SIZE_CONFIG);
+		this.circuitBreakerOpenMs = this.getLong(CIRCUIT_BREAKER_OPEN_MS_CONFIG);
+		this.circuitBreakerHalfOpenProbes = this.getInt(CIRCUIT_BREAKER_HALF_OPEN_PROBES_CONFIG);
 	}
 
 	public static ConfigDef getConfigDef() {
@@ -44,7 +322,55 @@ public final class FnInvocationConfig extends AbstractConfig {
 				.define(USER_OCID_CONFIG, ConfigDef.Type.STRING, ConfigDef.Importance.HIGH, USER_OCID_CONFIG_DESC)
 				.define(PUBLIC_KEY_FINGERPRINT_CONFIG, ConfigDef.Type.STRING, ConfigDef.Importance.HIGH, PUBLIC_KEY_FINGERPRINT_CONFIG_DESC)
 				.define(PRIVATE_KEY_CONFIG, ConfigDef.Type.STRING, ConfigDef.NO_DEFAULT_VALUE, new PrivateKeyFileTypeValidator(), ConfigDef.Importance.HIGH, PRIVATE_KEY_CONFIG_DESC)
-				.define(FUNCTION_URL_CONFIG, ConfigDef.Type.STRING, ConfigDef.Importance.HIGH, FUNCTION_URL_CONFIG_DESC);
+				.define(FUNCTION_URL_CONFIG, ConfigDef.Type.STRING, ConfigDef.Importance.HIGH, FUNCTION_URL_CONFIG_DESC)
+				.define(ROUTING_RULES_CONFIG, ConfigDef.Type.STRING, "", new RoutingRulesValidator(), ConfigDef.Importance.MEDIUM, ROUTING_RULES_CONFIG_DESC)
+				.define(FILTER_CONDITIONS_CONFIG, ConfigDef.Type.STRING, "", new FilterConditionsValidator(), ConfigDef.Importance.MEDIUM, FILTER_CONDITIONS_CONFIG_DESC)
+				.define(HTTP_MAX_CONNECTIONS_CONFIG, ConfigDef.Type.INT, 20, ConfigDef.Range.atLeast(1), ConfigDef.Importance.MEDIUM, HTTP_MAX_CONNECTIONS_CONFIG_DESC)
+				.define(HTTP_MAX_CONNECTIONS_PER_ROUTE_CONFIG, ConfigDef.Type.INT, 20, ConfigDef.Range.atLeast(1), ConfigDef.Importance.MEDIUM, HTTP_MAX_CONNECTIONS_PER_ROUTE_CONFIG_DESC)
+				.define(HTTP_IDLE_EVICTION_MS_CONFIG, ConfigDef.Type.LONG, 30000L, ConfigDef.Range.atLeast(1), ConfigDef.Importance.LOW, HTTP_IDLE_EVICTION_MS_CONFIG_DESC)
+				.define(HTTP_CONNECTION_TTL_MS_CONFIG, ConfigDef.Type.LONG, 300000L, ConfigDef.Range.atLeast(1), ConfigDef.Importance.LOW, HTTP_CONNECTION_TTL_MS_CONFIG_DESC)
+				.define(INVOCATION_MODE_CONFIG, ConfigDef.Type.STRING, INVOCATION_MODE_SYNC, ConfigDef.ValidString.in(INVOCATION_MODE_SYNC, INVOCATION_MODE_ASYNC, INVOCATION_MODE_ORDERED), ConfigDef.Importance.MEDIUM, INVOCATION_MODE_CONFIG_DESC)
+				.define(MAX_IN_FLIGHT_CONFIG, ConfigDef.Type.INT, 100, ConfigDef.Range.atLeast(1), ConfigDef.Importance.MEDIUM, MAX_IN_FLIGHT_CONFIG_DESC)
+				.define(ORDERED_LANES_PER_PARTITION_CONFIG, ConfigDef.Type.INT, 1, ConfigDef.Range.atLeast(1), ConfigDef.Importance.LOW, ORDERED_LANES_PER_PARTITION_CONFIG_DESC)
+				.define(BATCH_MAX_RECORDS_CONFIG, ConfigDef.Type.INT, 1, ConfigDef.Range.atLeast(1), ConfigDef.Importance.MEDIUM, BATCH_MAX_RECORDS_CONFIG_DESC)
+				.define(BATCH_MAX_BYTES_CONFIG, ConfigDef.Type.INT, 1048576, ConfigDef.Range.atLeast(1), ConfigDef.Importance.MEDIUM, BATCH_MAX_BYTES_CONFIG_DESC)
+				.define(BATCH_LINGER_MS_CONFIG, ConfigDef.Type.LONG, 100L, ConfigDef.Range.atLeast(0), ConfigDef.Importance.MEDIUM, BATCH_LINGER_MS_CONFIG_DESC)
+				.define(BATCH_FORMAT_CONFIG, ConfigDef.Type.STRING, "json_array", ConfigDef.ValidString.in("json_array", "ndjson", "length_prefixed"), ConfigDef.Importance.MEDIUM, BATCH_FORMAT_CONFIG_DESC)
+				.define(REQUEST_COMPRESSION_CONFIG, ConfigDef.Type.STRING, REQUEST_COMPRESSION_NONE, ConfigDef.ValidString.in(REQUEST_COMPRESSION_NONE, REQUEST_COMPRESSION_GZIP), ConfigDef.Importance.MEDIUM, REQUEST_COMPRESSION_CONFIG_DESC)
+				.define(REQUEST_COMPRESSION_MIN_BYTES_CONFIG, ConfigDef.Type.INT, 8192, ConfigDef.Range.atLeast(0), ConfigDef.Importance.LOW, REQUEST_COMPRESSION_MIN_BYTES_CONFIG_DESC)
+				.define(REQUEST_COMPRESSION_LEVEL_CONFIG, ConfigDef.Type.INT, 1, ConfigDef.Range.between(1, 9), ConfigDef.Importance.LOW, REQUEST_COMPRESSION_LEVEL_CONFIG_DESC)
+				.define(RETRY_MAX_ATTEMPTS_CONFIG, ConfigDef.Type.INT, 3, ConfigDef.Range.atLeast(1), ConfigDef.Importance.MEDIUM, RETRY_MAX_ATTEMPTS_CONFIG_DESC)
+				.define(RETRY_BACKOFF_MS_CONFIG, ConfigDef.Type.LONG, 100L, ConfigDef.Range.atLeast(1), ConfigDef.Importance.LOW, RETRY_BACKOFF_MS_CONFIG_DESC)
+				.define(RETRY_BACKOFF_MAX_MS_CONFIG, ConfigDef.Type.LONG, 10000L, ConfigDef.Range.atLeast(1), ConfigDef.Importance.LOW, RETRY_BACKOFF_MAX_MS_CONFIG_DESC)
+				.define(ADAPTIVE_CONCURRENCY_CONFIG, ConfigDef.Type.BOOLEAN, false, ConfigDef.Importance.MEDIUM, ADAPTIVE_CONCURRENCY_CONFIG_DESC)
+				.define(ADAPTIVE_CONCURRENCY_MIN_CONFIG, ConfigDef.Type.INT, 1, ConfigDef.Range.atLeast(1), ConfigDef.Importance.LOW, ADAPTIVE_CONCURRENCY_MIN_CONFIG_DESC)
+				.define(RATE_LIMIT_INVOCATIONS_PER_SEC_CONFIG, ConfigDef.Type.DOUBLE, 0.0, ConfigDef.Range.atLeast(0), ConfigDef.Importance.MEDIUM, RATE_LIMIT_INVOCATIONS_PER_SEC_CONFIG_DESC)
+				.define(RATE_LIMIT_BYTES_PER_SEC_CONFIG, ConfigDef.Type.LONG, 0L, ConfigDef.Range.atLeast(0), ConfigDef.Importance.MEDIUM, RATE_LIMIT_BYTES_PER_SEC_CONFIG_DESC)
+				.define(PAYLOAD_BUDGET_BYTES_CONFIG, ConfigDef.Type.LONG, 0L, ConfigDef.Range.atLeast(0), ConfigDef.Importance.MEDIUM, PAYLOAD_BUDGET_BYTES_CONFIG_DESC)
+				.define(PAYLOAD_BUDGET_LOW_WATER_PERCENT_CONFIG, ConfigDef.Type.INT, 50, ConfigDef.Range.between(1, 100), ConfigDef.Importance.LOW, PAYLOAD_BUDGET_LOW_WATER_PERCENT_CONFIG_DESC)
+				.define(SPLIT_TASK_BUDGETS_CONFIG, ConfigDef.Type.BOOLEAN, false, ConfigDef.Importance.MEDIUM, SPLIT_TASK_BUDGETS_CONFIG_DESC)
+				.define(DEDUP_KEY_CONFIG, ConfigDef.Type.STRING, RecordDeduplicator.KEY_NONE, new DedupKeyValidator(), ConfigDef.Importance.MEDIUM, DEDUP_KEY_CONFIG_DESC)
+				.define(DEDUP_CAPACITY_CONFIG, ConfigDef.Type.INT, 1048576, ConfigDef.Range.between(1, 1 << 30), ConfigDef.Importance.LOW, DEDUP_CAPACITY_CONFIG_DESC)
+				.define(DEDUP_TTL_MS_CONFIG, ConfigDef.Type.LONG, 3600000L, ConfigDef.Range.atLeast(1000), ConfigDef.Importance.LOW, DEDUP_TTL_MS_CONFIG_DESC)
+				.define(DEDUP_IDEMPOTENCY_HEADER_CONFIG, ConfigDef.Type.STRING, "Idempotency-Key", ConfigDef.Importance.LOW, DEDUP_IDEMPOTENCY_HEADER_CONFIG_DESC)
+				.define(DLQ_ENABLED_CONFIG, ConfigDef.Type.BOOLEAN, false, ConfigDef.Importance.MEDIUM, DLQ_ENABLED_CONFIG_DESC)
+				.define(DLQ_SPILL_DIR_CONFIG, ConfigDef.Type.STRING, System.getProperty("java.io.tmpdir"), ConfigDef.Importance.LOW, DLQ_SPILL_DIR_CONFIG_DESC)
+				.define(RESPONSE_SINK_CONFIG, ConfigDef.Type.STRING, RESPONSE_SINK_NONE, ConfigDef.ValidString.in(RESPONSE_SINK_NONE, RESPONSE_SINK_TOPIC, RESPONSE_SINK_FILE), ConfigDef.Importance.MEDIUM, RESPONSE_SINK_CONFIG_DESC)
+				.define(RESPONSE_TOPIC_CONFIG, ConfigDef.Type.STRING, "", ConfigDef.Importance.MEDIUM, RESPONSE_TOPIC_CONFIG_DESC)
+				.define(RESPONSE_BOOTSTRAP_SERVERS_CONFIG, ConfigDef.Type.STRING, "", ConfigDef.Importance.MEDIUM, RESPONSE_BOOTSTRAP_SERVERS_CONFIG_DESC)
+				.define(RESPONSE_DIR_CONFIG, ConfigDef.Type.STRING, System.getProperty("java.io.tmpdir"), ConfigDef.Importance.LOW, RESPONSE_DIR_CONFIG_DESC)
+				.define(RESPONSE_MAX_BYTES_CONFIG, ConfigDef.Type.INT, 1048576, ConfigDef.Range.atLeast(1), ConfigDef.Importance.LOW, RESPONSE_MAX_BYTES_CONFIG_DESC)
+				.define(WARMUP_CONNECTIONS_CONFIG, ConfigDef.Type.INT, 0, ConfigDef.Range.atLeast(0), ConfigDef.Importance.MEDIUM, WARMUP_CONNECTIONS_CONFIG_DESC)
+				.define(WARMUP_PAYLOAD_CONFIG, ConfigDef.Type.STRING, "", ConfigDef.Importance.MEDIUM, WARMUP_PAYLOAD_CONFIG_DESC)
+				.define(WARMUP_TIMEOUT_MS_CONFIG, ConfigDef.Type.LONG, 30000L, ConfigDef.Range.atLeast(1), ConfigDef.Importance.LOW, WARMUP_TIMEOUT_MS_CONFIG_DESC)
+				.define(WARMUP_FUNCTION_URLS_PER_TASK_CONFIG, ConfigDef.Type.BOOLEAN, false, ConfigDef.Importance.LOW, WARMUP_FUNCTION_URLS_PER_TASK_CONFIG_DESC)
+				.define(CIRCUIT_BREAKER_ENABLED_CONFIG, ConfigDef.Type.BOOLEAN, false, ConfigDef.Importance.MEDIUM, CIRCUIT_BREAKER_ENABLED_CONFIG_DESC)
+				.define(CIRCUIT_BREAKER_FAILURE_RATE_THRESHOLD_CONFIG, ConfigDef.Type.INT, 50, ConfigDef.Range.between(1, 100), ConfigDef.Importance.LOW, CIRCUIT_BREAKER_FAILURE_RATE_THRESHOLD_CONFIG_DESC)
+				.define(CIRCUIT_BREAKER_SLOW_CALL_RATE_THRESHOLD_CONFIG, ConfigDef.Type.INT, 100, ConfigDef.Range.between(1, 100), ConfigDef.Importance.LOW, CIRCUIT_BREAKER_SLOW_CALL_RATE_THRESHOLD_CONFIG_DESC)
+				.define(CIRCUIT_BREAKER_SLOW_CALL_MS_CONFIG, ConfigDef.Type.LONG, 10000L, ConfigDef.Range.atLeast(1), ConfigDef.Importance.LOW, CIRCUIT_BREAKER_SLOW_CALL_MS_CONFIG_DESC)
+				.define(CIRCUIT_BREAKER_WINDOW_SIZE_CONFIG, ConfigDef.Type.INT, 20, ConfigDef.Range.atLeast(1), ConfigDef.Importance.LOW, CIRCUIT_BREAKER_WINDOW_SIZE_CONFIG_DESC)
+				.define(CIRCUIT_BREAKER_OPEN_MS_CONFIG, ConfigDef.Type.LONG, 30000L, ConfigDef.Range.atLeast(1), ConfigDef.Importance.LOW, CIRCUIT_BREAKER_OPEN_MS_CONFIG_DESC)
+				.define(CIRCUIT_BREAKER_HALF_OPEN_PROBES_CONFIG, ConfigDef.Type.INT, 3, ConfigDef.Range.atLeast(1), ConfigDef.Importance.LOW, CIRCUIT_BREAKER_HALF_OPEN_PROBES_CONFIG_DESC);
 	}
 	
 	public String getTenantOcid() {
@@ -67,6 +393,202 @@ public final class FnInvocationConfig extends AbstractConfig {
 		return functionUrl;
 	}
 
+	public String getRoutingRules() {
+		return routingRules;
+	}
+
+	public String getFilterConditions() {
+		return filterConditions;
+	}
+
+	public int getHttpMaxConnections() {
+		return httpMaxConnections;
+	}
+
+	public int getHttpMaxConnectionsPerRoute() {
+		return httpMaxConnectionsPerRoute;
+	}
+
+	public long getHttpIdleEvictionMs() {
+		return httpIdleEvictionMs;
+	}
+
+	public long getHttpConnectionTtlMs() {
+		return httpConnectionTtlMs;
+	}
+
+	public String getInvocationMode() {
+		return invocationMode;
+	}
+
+	public int getMaxInFlight() {
+		return maxInFlight;
+	}
+
+	public int getOrderedLanesPerPartition() {
+		return orderedLanesPerPartition;
+	}
+
+	public int getBatchMaxRecords() {
+		return batchMaxRecords;
+	}
+
+	public int getBatchMaxBytes() {
+		return batchMaxBytes;
+	}
+
+	public long getBatchLingerMs() {
+		return batchLingerMs;
+	}
+
+	public String getBatchFormat() {
+		return batchFormat;
+	}
+
+	public String getRequestCompression() {
+		return requestCompression;
+	}
+
+	public int getRequestCompressionMinBytes() {
+		return requestCompressionMinBytes;
+	}
+
+	public int getRequestCompressionLevel() {
+		return requestCompressionLevel;
+	}
+
+	public int getRetryMaxAttempts() {
+		return retryMaxAttempts;
+	}
+
+	public long getRetryBackoffMs() {
+		return retryBackoffMs;
+	}
+
+	public long getRetryBackoffMaxMs() {
+		return retryBackoffMaxMs;
+	}
+
+	public boolean isAdaptiveConcurrency() {
+		return adaptiveConcurrency;
+	}
+
+	public int getAdaptiveConcurrencyMin() {
+		return adaptiveConcurrencyMin;
+	}
+
+	public double getRateLimitInvocationsPerSec() {
+		return rateLimitInvocationsPerSec;
+	}
+
+	public long getRateLimitBytesPerSec() {
+		return rateLimitBytesPerSec;
+	}
+
+	public long getPayloadBudgetBytes() {
+		return payloadBudgetBytes;
+	}
+
+	public int getPayloadBudgetLowWaterPercent() {
+		return payloadBudgetLowWaterPercent;
+	}
+
+	public boolean isSplitTaskBudgets() {
+		return splitTaskBudgets;
+	}
+
+	public String getDedupKey() {
+		return dedupKey;
+	}
+
+	public int getDedupCapacity() {
+		return dedupCapacity;
+	}
+
+	public long getDedupTtlMs() {
+		return dedupTtlMs;
+	}
+
+	public String getDedupIdempotencyHeader() {
+		return dedupIdempotencyHeader;
+	}
+
+	public boolean isDlqEnabled() {
+		return dlqEnabled;
+	}
+
+	public String getDlqSpillDir() {
+		return dlqSpillDir;
+	}
+
+	public String getResponseSink() {
+		return responseSink;
+	}
+
+	public String getResponseTopic() {
+		return responseTopic;
+	}
+
+	public String getResponseBootstrapServers() {
+		return responseBootstrapServers;
+	}
+
+	public Map<String, Object> getResponseProducerConfig() {
+		return responseProducerConfig;
+	}
+
+	public String getResponseDir() {
+		return responseDir;
+	}
+
+	public int getResponseMaxBytes() {
+		return responseMaxBytes;
+	}
+
+	public int getWarmupConnections() {
+		return warmupConnections;
+	}
+
+	public String getWarmupPayload() {
+		return warmupPayload;
+	}
+
+	public long getWarmupTimeoutMs() {
+		return warmupTimeoutMs;
+	}
+
+	public boolean isWarmupFunctionUrlsPerTask() {
+		return warmupFunctionUrlsPerTask;
+	}
+
+	public boolean isCircuitBreakerEnabled() {
+		return circuitBreakerEnabled;
+	}
+
+	public int getCircuitBreakerFailureRateThreshold() {
+		return circuitBreakerFailureRateThreshold;
+	}
+
+	public int getCircuitBreakerSlowCallRateThreshold() {
+		return circuitBreakerSlowCallRateThreshold;
+	}
+
+	public long getCircuitBreakerSlowCallMs() {
+		return circuitBreakerSlowCallMs;
+	}
+
+	public int getCircuitBreakerWindowSize() {
+		return circuitBreakerWindowSize;
+	}
+
+	public long getCircuitBreakerOpenMs() {
+		return circuitBreakerOpenMs;
+	}
+
+	public int getCircuitBreakerHalfOpenProbes() {
+		return circuitBreakerHalfOpenProbes;
+	}
+
 
 	private static class PrivateKeyFileTypeValidator implements ConfigDef.Validator {
 
@@ -82,5 +604,40 @@ public final class FnInvocationConfig extends AbstractConfig {
 		}
 
 	}
+
+	private static class RoutingRulesValidator implements ConfigDef.Validator {
+
+		/**
+		 * compile the rules, so that mistakes are reported when the connector is created
+		 */
+		@Override
+		public void ensureValid(String configName, Object rules) {
+			new RecordRouter((String) rules, null);
+		}
+
+	}
+
+	private static class DedupKeyValidator implements ConfigDef.Validator {
+
+		@Override
+		public void ensureValid(String configName, Object key) {
+			String value = (String) key;
+			if (!value.equals(RecordDeduplicator.KEY_NONE) && !value.equals(RecordDeduplicator.KEY_OFFSET)
+					&& !value.equals(RecordDeduplicator.KEY_RECORD_KEY)
+					&& !(value.startsWith(RecordDeduplicator.KEY_HEADER_PREFIX) && value.length() > RecordDeduplicator.KEY_HEADER_PREFIX.length())) {
+				throw new ConfigException(configName, key, "Expected none, offset, key or header.<name>");
+			}
+		}
+
+	}
+
+	private static class FilterConditionsValidator implements ConfigDef.Validator {
+
+		@Override
+		public void ensureValid(String configName, Object conditions) {
+			new RecordFilter((String) conditions);
+		}
+
+	}
 	
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -1,16 +1,84 @@
 package com.fn.sink.kafka.connect;
 
+import com.fn.sink.kafka.connect.http.FnClientCommon;
+import com.fn.sink.kafka.connect.http.FnHTTPAsyncPost;
 import com.fn.sink.kafka.connect.http.FnHTTPPost;
+import com.fn.sink.kafka.connect.http.FnPayloadEntity;
+import com.fn.sink.kafka.connect.http.FnRequestCompression;
+import com.fn.sink.kafka.connect.http.FnResponseHandler;
+import com.fn.sink.kafka.connect.http.FnSigningContextProvider;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.logging.Level;
+import java.util.List;
+import java.util.logging.Logger;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.client.utils.HttpClientUtils;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
 import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.connect.errors.ConnectException;
+import org.apache.kafka.connect.errors.DataException;
+import org.apache.kafka.connect.errors.RetriableException;
 import org.apache.kafka.connect.sink.SinkRecord;
 import org.apache.kafka.connect.sink.SinkTask;
 
 public class FnInvocationTask extends SinkTask {
 
+	private static final Logger LOGGER = Logger.getLogger(FnInvocationTask.class.getName());
+	private static final AtomicInteger TASK_SEQUENCE = new AtomicInteger();
+	private static final Header[] NO_HEADERS = new Header[0];
+	// how soon put is called again while partitions are paused over the payload budget
+	private static final long PAYLOAD_BUDGET_RECHECK_MS = 50;
+
 	private FnInvocationConfig config;
+	private FnSigningContextProvider signing;
+	private CloseableHttpClient httpClient;
+	private CloseableHttpAsyncClient asyncHttpClient;
+	private InvocationDispatcher dispatcher;
+	private RecordBatcher batcher;
+	private PayloadSerializer serializer;
+	private FnRequestCompression compression;
+	private InvocationFailures failures;
+	private ScheduledExecutorService retryScheduler;
+	private ExecutorService workers;
+	private SinkRecord redeliveryFirst;
+	private int redeliverySize = -1;
+	private FnMBeans mbeans;
+	private TaskMetrics metrics;
+	private InvocationThrottle throttle;
+	private CircuitBreakingInvoker breakers;
+	private RecordRouter router;
+	private RecordFilter filter;
+	private RecordDeduplicator dedup;
+	private DeadLetterQueue deadLetters;
+	private ResponseForwarder responses;
+	private PayloadBudget budget;
+	private Set<TopicPartition> paused = new HashSet<>();
+	// first offset each partition was rewound to, until it is delivered again
+	private final Map<TopicPartition, Long> rewound = new HashMap<>();
+	// rewound partitions the current put delivers again
+	private final Set<TopicPartition> redelivered = new HashSet<>();
 
 	@Override
 	public String version() {
@@ -20,54 +88,504 @@ public class FnInvocationTask extends SinkTask {
 	@Override
 	public void start(Map<String, String> props) {
 		config = new FnInvocationConfig(props);
+		String connectorName = props.getOrDefault("name", "fn-sink");
+		String taskId = props.containsKey(FnInvocationConfig.TASK_ID_CONFIG) ? props.get(FnInvocationConfig.TASK_ID_CONFIG)
+				: Integer.toString(TASK_SEQUENCE.getAndIncrement());
+		mbeans = new FnMBeans(connectorName, taskId);
+		metrics = new TaskMetrics(mbeans);
+		serializer = new PayloadSerializer();
+		router = new RecordRouter(config.getRoutingRules(), config.getFunctionUrl());
+		filter = new RecordFilter(config.getFilterConditions());
+		try {
+			signing = new FnSigningContextProvider(config.getTenantOcid(), config.getUserOcid(), 
+					config.getPublicFingerprint(), config.getPrivateKeyLocation());
+		} catch (RuntimeException e) {
+			throw new ConnectException("Failed to load private key " + config.getPrivateKeyLocation(), e);
+		}
+		if (config.isDlqEnabled()) {
+			deadLetters = new DeadLetterQueue(deadLetterSink(connectorName, taskId), "fn-dead-letters-" + taskId);
+		}
+		failures = new InvocationFailures(config.getRetryBackoffMs(), deadLetters);
+		InvocationListener listener = failures;
+		if (!RecordDeduplicator.KEY_NONE.equals(config.getDedupKey())) {
+			dedup = new RecordDeduplicator(config.getDedupKey(), config.getDedupIdempotencyHeader(),
+					config.getDedupCapacity(), config.getDedupTtlMs());
+			listener = listener.andThen(dedup);
+		}
+		if (!FnInvocationConfig.RESPONSE_SINK_NONE.equals(config.getResponseSink())) {
+			responses = new ResponseForwarder(responseSink(connectorName, taskId));
+			listener = listener.andThen(responses);
+		}
+		if (config.getPayloadBudgetBytes() > 0) {
+			budget = new PayloadBudget(config.getPayloadBudgetBytes(),
+					config.getPayloadBudgetBytes() * config.getPayloadBudgetLowWaterPercent() / 100);
+			mbeans.register("payload-budget", budget);
+			listener = listener.andThen(budget);
+		}
+		// response bodies are only kept when forwarded
+		long maxResponseBytes = responses == null ? 0 : config.getResponseMaxBytes();
+		retryScheduler = Executors.newSingleThreadScheduledExecutor(
+				new ThreadFactoryBuilder().setNameFormat("fn-invocation-retry-%d").setDaemon(true).build());
+		TaskWarmup warmup;
+		RetryPolicy retryPolicy = new RetryPolicy(config.getRetryMaxAttempts(), config.getRetryBackoffMs(), config.getRetryBackoffMaxMs());
+		InFlightLimiter limiter;
+		// sync mode has one invocation in flight, there is no limit to adapt
+		if (config.isAdaptiveConcurrency() && !FnInvocationConfig.INVOCATION_MODE_SYNC.equals(config.getInvocationMode())) {
+			// start wide open and back off, rather than ramp up one per round trip
+			int minLimit = Math.min(config.getAdaptiveConcurrencyMin(), config.getMaxInFlight());
+			AdaptiveInFlightLimiter adaptive = new AdaptiveInFlightLimiter(minLimit, config.getMaxInFlight(), config.getMaxInFlight());
+			mbeans.register("concurrency-limiter", adaptive);
+			limiter = adaptive;
+		} else {
+			limiter = new InFlightLimiter(config.getMaxInFlight());
+		}
+		if (FnInvocationConfig.INVOCATION_MODE_ASYNC.equals(config.getInvocationMode())) {
+			PoolingNHttpClientConnectionManager pool = FnClientCommon.createAsyncConnectionManager(config.getHttpMaxConnections(),
+					config.getHttpMaxConnectionsPerRoute(), config.getHttpConnectionTtlMs());
+			metrics.monitor(pool);
+			asyncHttpClient = FnClientCommon.createAsyncHttpClient(pool, config.getHttpIdleEvictionMs());
+			FnHTTPAsyncPost fnPOST = new FnHTTPAsyncPost(signing, asyncHttpClient, maxResponseBytes, metrics);
+			warmup = new TaskWarmup(signing, (url, connections, timeoutMs) -> FnClientCommon.preconnect(pool, url, connections, timeoutMs),
+					fnPOST::invoke);
+			FnInvoker invoker = new RetryingInvoker(guarded(sampled(fnPOST::invoke, limiter)), retryPolicy, retryScheduler);
+			dispatcher = new AsyncInvocationDispatcher(invoker, listener, limiter);
+		} else {
+			PoolingHttpClientConnectionManager pool = FnClientCommon.createConnectionManager(config.getHttpMaxConnections(),
+					config.getHttpMaxConnectionsPerRoute(), config.getHttpConnectionTtlMs());
+			metrics.monitor(pool);
+			httpClient = FnClientCommon.createHttpClient(pool, config.getHttpIdleEvictionMs());
+			FnHTTPPost fnPOST = new FnHTTPPost(signing, httpClient, metrics);
+			TaskWarmup.Connector connector = (url, connections, timeoutMs) -> FnClientCommon.preconnect(pool, url, connections, timeoutMs);
+			if (FnInvocationConfig.INVOCATION_MODE_ORDERED.equals(config.getInvocationMode())) {
+				workers = Executors.newFixedThreadPool(config.getMaxInFlight(),
+						new ThreadFactoryBuilder().setNameFormat("fn-invocation-%d").setDaemon(true).build());
+				BlockingInvoker blocking = new BlockingInvoker(fnPOST, workers, new FnResponseHandler(maxResponseBytes));
+				warmup = new TaskWarmup(signing, connector, blocking);
+				FnInvoker invoker = new RetryingInvoker(guarded(sampled(blocking, limiter)), retryPolicy, retryScheduler);
+				dispatcher = new OrderedInvocationDispatcher(invoker, listener, failures,
+						limiter, config.getOrderedLanesPerPartition());
+			} else {
+				BlockingInvoker blocking = new BlockingInvoker(fnPOST, MoreExecutors.directExecutor(), new FnResponseHandler(maxResponseBytes));
+				warmup = new TaskWarmup(signing, connector, blocking);
+				// no local retries, their backoff would block this thread: failed
+				// records are rewound and the framework waits it out instead
+				RetryPolicy handBack = new RetryPolicy(1, config.getRetryBackoffMs(), config.getRetryBackoffMaxMs());
+				FnInvoker invoker = new RetryingInvoker(guarded(blocking), handBack, retryScheduler);
+				dispatcher = new SyncInvocationDispatcher(invoker, listener);
+			}
+		}
+		if (config.getBatchMaxRecords() > 1) {
+			batcher = new RecordBatcher(config.getBatchMaxRecords(), config.getBatchMaxBytes(), config.getBatchLingerMs(),
+					BatchFormat.forConfigName(config.getBatchFormat()));
+		}
+		if (FnInvocationConfig.REQUEST_COMPRESSION_GZIP.equals(config.getRequestCompression())) {
+			compression = new FnRequestCompression(config.getRequestCompressionLevel(), config.getRequestCompressionMinBytes());
+		}
+		if (config.getRateLimitInvocationsPerSec() > 0 || config.getRateLimitBytesPerSec() > 0) {
+			throttle = new InvocationThrottle(config.getRateLimitInvocationsPerSec(), config.getRateLimitBytesPerSec());
+		}
+		if (config.getWarmupConnections() > 0 || !config.getWarmupPayload().isEmpty()) {
+			metrics.onWarmup(warmup.run(warmupUrls(props), config.getWarmupConnections(), config.getWarmupPayload(),
+					config.getWarmupTimeoutMs()));
+		}
+	}
+
+	/**
+	 * @return the function URLs the connector gave this task to warm up, or
+	 * every one records can be routed to
+	 */
+	private Collection<String> warmupUrls(Map<String, String> props) {
+		String dealt = props.get(FnInvocationConfig.TASK_WARMUP_FUNCTION_URLS_CONFIG);
+		if (dealt == null) {
+			return router.functionUrls();
+		}
+		List<String> urls = new ArrayList<>();
+		for (String url : dealt.split(";")) {
+			if (!url.isEmpty()) {
+				urls.add(url);
+			}
+		}
+		return urls;
+	}
+
+	private DeadLetterSink deadLetterSink(String connectorName, String taskId) {
+		DeadLetterSink sink = ErrantRecordReporterSink.forContext(context);
+		if (sink != null) {
+			return sink;
+		}
+		try {
+			SpillFileSink spill = new SpillFileSink(Paths.get(config.getDlqSpillDir(), connectorName + "-" + taskId + "-dlq.jsonl"));
+			LOGGER.info("No errant record reporter, dead letters are appended to " + spill.path());
+			return spill;
+		} catch (IOException e) {
+			throw new ConnectException("Failed to open a dead letter spill file in " + config.getDlqSpillDir(), e);
+		}
+	}
+
+	private ResponseSink responseSink(String connectorName, String taskId) {
+		if (FnInvocationConfig.RESPONSE_SINK_TOPIC.equals(config.getResponseSink())) {
+			return new KafkaResponseSink(config.getResponseTopic(), config.getResponseBootstrapServers(),
+					connectorName + "-responses-" + taskId, config.getResponseProducerConfig());
+		}
+		try {
+			FileResponseSink file = new FileResponseSink(Paths.get(config.getResponseDir(), connectorName + "-" + taskId + "-responses.log"));
+			LOGGER.info("Function responses are appended to " + file.path());
+			return file;
+		} catch (IOException e) {
+			throw new ConnectException("Failed to open a response file in " + config.getResponseDir(), e);
+		}
+	}
+
+	private FnInvoker sampled(FnInvoker invoker, InFlightLimiter limiter) {
+		return config.isAdaptiveConcurrency() ? new SamplingInvoker(invoker, limiter) : invoker;
+	}
+
+	private FnInvoker guarded(FnInvoker invoker) {
+		if (!config.isCircuitBreakerEnabled()) {
+			return invoker;
+		}
+		breakers = new CircuitBreakingInvoker(invoker, functionUrl -> {
+			CircuitBreaker breaker = new CircuitBreaker(functionUrl, config.getCircuitBreakerFailureRateThreshold(),
+					config.getCircuitBreakerSlowCallRateThreshold(), config.getCircuitBreakerSlowCallMs(),
+					config.getCircuitBreakerWindowSize(), config.getCircuitBreakerOpenMs(), config.getCircuitBreakerHalfOpenProbes());
+			mbeans.register("circuit-breaker", functionUrl, breaker);
+			return breaker;
+		});
+		return breakers;
 	}
 
 	@Override
 	public void put(Collection<SinkRecord> records) {
 
+		metrics.onPut(records.size());
+
+		if (throttle != null && circuitOpenMs() == 0) {
+			throttle.drain(this::invoke);
+		}
+
+		if (isRedelivery(records)) {
+			// every record was either invoked already or belongs to a
+			// partition that was rewound and will be delivered again
+			holdBack();
+			delivered();
+			return;
+		}
+
+		redelivering(records);
+
 		for (SinkRecord record : records) {
 
-			//check business logic
-			if(triggerFn(record)) {
-				try {
-					FnHTTPPost fnPOST = new FnHTTPPost(config.getTenantOcid(), config.getUserOcid(), 
-							config.getPublicFingerprint(), config.getPrivateKeyLocation());
-					String fnPOSTResult = fnPOST.invoke(config.getFunctionUrl(), (String) record.value());
-				} catch (Exception e) {
-					e.printStackTrace();
+			// tombstones carry nothing to invoke the function with
+			if (record.value() == null || failures.hasFailed(record)) {
+				continue;
+			}
+
+			// already invoked before a rebalance or redelivery
+			if (dedup != null && dedup.isDuplicate(record)) {
+				continue;
+			}
+
+			try {
+				ByteBuffer value = serializer.serialize(record);
+				//check business logic
+				if (!triggerFn(record, value)) {
+					continue;
+				}
+				String functionUrl = router.route(record, value);
+				if (functionUrl == null) {
+					// dropped by a routing rule
+					continue;
+				}
+				if (batcher == null) {
+					submit(Collections.singletonList(record), functionUrl, FnPayloadEntity.wrap(value, ContentType.APPLICATION_JSON));
+				} else {
+					batcher.add(dispatcher.batchGroup(record), functionUrl, record, value, System.currentTimeMillis(), this::dispatchBatch);
+				}
+			} catch (DataException e) {
+				if (deadLetters != null) {
+					deadLetters.add(Collections.singletonList(record), e);
+					continue;
 				}
+				LOGGER.log(Level.SEVERE, "Skipping record " + record.topic() + "-" + record.kafkaPartition()
+						+ " at offset " + record.kafkaOffset(), e);
+			}
+
+		}
+
+		// put is also called with no records while the topics are idle
+		if (batcher != null) {
+			batcher.expire(System.currentTimeMillis(), this::dispatchBatch);
+		}
+
+		holdBack();
+
+		if (!failures.isEmpty()) {
+			redeliver(records);
+		}
+
+		delivered();
+	}
+
+	private void dispatchBatch(RecordBatcher.Batch batch) {
+		if (failures.hasFailed(batch.records().get(0))) {
+			return;
+		}
+		submit(batch.records(), batch.functionUrl(), batch.toEntity());
+	}
+
+	private void submit(List<SinkRecord> records, String functionUrl, HttpEntity entity) {
+		// once, before rate limiting and the budget count its bytes and
+		// before retries resend it
+		if (compression != null) {
+			entity = compression.compress(entity);
+		}
+		if (throttle == null) {
+			invoke(records, functionUrl, entity);
+		} else {
+			throttle.submit(records, functionUrl, entity, this::invoke);
+		}
+	}
+
+	private void invoke(List<SinkRecord> records, String functionUrl, HttpEntity entity) {
+		// may have waited in the throttle while its partition failed
+		if (failures.hasFailed(records.get(0))) {
+			return;
+		}
+		if (budget != null) {
+			budget.hold(records, entity.getContentLength());
+		}
+		dispatcher.dispatch(records, functionUrl, entity,
+				dedup == null ? NO_HEADERS : new Header[] { dedup.idempotencyHeader(records) });
+	}
+
+	/**
+	 * While invocations wait for rate limit tokens, or the circuit breakers
+	 * of all functions are open, pause the partitions rather than blocking this thread,
+	 * and have the framework call put again once the next tokens are due or
+	 * the breaker half-opens. Otherwise, while the payload budget is exceeded,
+	 * pause its heaviest partitions until enough invocations complete.
+	 */
+	private void holdBack() {
+		long waitMs = circuitOpenMs();
+		if (throttle != null && !throttle.isEmpty()) {
+			waitMs = waitMs > 0 ? Math.min(waitMs, throttle.waitMs()) : throttle.waitMs();
+		}
+		Set<TopicPartition> assignment = context.assignment();
+		Set<TopicPartition> pause;
+		if (waitMs > 0) {
+			// partitions assigned since the last pause are paused too
+			pause = new HashSet<>(assignment);
+			context.timeout(waitMs);
+		} else {
+			pause = budget == null ? new HashSet<>()
+					: budget.update(throttle == null ? Collections.emptyMap() : throttle.waitingBytes());
+			pause.retainAll(assignment);
+			if (!pause.isEmpty()) {
+				context.timeout(PAYLOAD_BUDGET_RECHECK_MS);
 			}
+		}
+		Set<TopicPartition> resume = new HashSet<>(paused);
+		resume.removeAll(pause);
+		resume.retainAll(assignment);
+		if (!resume.isEmpty()) {
+			context.resume(resume.toArray(new TopicPartition[0]));
+		}
+		if (!pause.isEmpty()) {
+			context.pause(pause.toArray(new TopicPartition[0]));
+		}
+		paused = pause;
+	}
+
+	/**
+	 * Hand invocations that ran out of local retries back to the framework:
+	 * rewind their partitions to the first failed offset and let it wait out
+	 * the backoff before delivering them again, rather than sleeping here.
+	 */
+	private void redeliver(Collection<SinkRecord> records) {
+		if (batcher != null) {
+			batcher.drain(this::dispatchBatch);
+		}
+		dispatcher.awaitInFlight();
+		if (budget != null) {
+			budget.settle();
+		}
+		Map<TopicPartition, Long> rewinds = failures.drainRewinds();
+		rewind(rewinds);
+		context.timeout(failures.drainBackoffMs());
+		// the framework delivers this same batch again first
+		redeliveryFirst = records.isEmpty() ? null : records.iterator().next();
+		redeliverySize = records.size();
+		throw new RetriableException("Function invocation failed for " + rewinds.keySet() + ", delivering again");
+	}
+
+	/**
+	 * The framework only seeks to the rewound offsets on its next poll, and
+	 * moves its own offsets past the batch once it has been put again, so
+	 * the partitions stay capped in preCommit until they are.
+	 */
+	private void rewind(Map<TopicPartition, Long> rewinds) {
+		if (rewinds.isEmpty()) {
+			return;
+		}
+		context.offset(rewinds);
+		rewinds.forEach((partition, offset) -> {
+			// failed again after the records up to it were delivered again
+			if (redelivered.remove(partition)) {
+				rewound.put(partition, offset);
+			} else {
+				rewound.merge(partition, offset, Math::min);
+			}
+		});
+	}
+
+	private void redelivering(Collection<SinkRecord> records) {
+		if (rewound.isEmpty()) {
+			return;
+		}
+		for (SinkRecord record : records) {
+			TopicPartition partition = new TopicPartition(record.topic(), record.kafkaPartition());
+			Long offset = rewound.get(partition);
+			if (offset != null && record.kafkaOffset() <= offset) {
+				redelivered.add(partition);
+			}
+		}
+	}
+
+	/**
+	 * The framework moves its offsets past a batch only once a put of it
+	 * returns, and a failed put is delivered again and skipped before that.
+	 */
+	private void delivered() {
+		rewound.keySet().removeAll(redelivered);
+		redelivered.clear();
+	}
+
+	private long circuitOpenMs() {
+		return breakers == null ? 0 : breakers.remainingOpenMs();
+	}
 
+	private boolean isRedelivery(Collection<SinkRecord> records) {
+		if (redeliverySize < 0) {
+			return false;
 		}
+		SinkRecord first = records.isEmpty() ? null : records.iterator().next();
+		boolean redelivery = records.size() == redeliverySize
+				&& (first == null || (first.topic().equals(redeliveryFirst.topic())
+						&& first.kafkaPartition().equals(redeliveryFirst.kafkaPartition())
+						&& first.kafkaOffset() == redeliveryFirst.kafkaOffset()));
+		redeliveryFirst = null;
+		redeliverySize = -1;
+		return redelivery;
+	}
+
+	/**
+	 * Offsets are only committed once every invocation dispatched before this
+	 * call has completed, and its dead letters and forwarded responses, if
+	 * any, have been written.
+	 */
+	@Override
+	public void flush(Map<TopicPartition, OffsetAndMetadata> currentOffsets) {
+		if (batcher != null) {
+			batcher.drain(this::dispatchBatch);
+		}
+		dispatcher.awaitInFlight();
+		if (budget != null) {
+			budget.settle();
+		}
+		if (deadLetters != null) {
+			deadLetters.flush();
+		}
+		if (responses != null) {
+			responses.flush();
+		}
+	}
+
+	/**
+	 * Partitions whose invocations failed are rewound to their first failed
+	 * offset, and committed up to it until their records are delivered
+	 * again. Partitions with records waiting for rate limit tokens are
+	 * committed up to the first of them.
+	 */
+	@Override
+	public Map<TopicPartition, OffsetAndMetadata> preCommit(Map<TopicPartition, OffsetAndMetadata> currentOffsets) {
+		flush(currentOffsets);
+		rewind(failures.drainRewinds());
+		Map<TopicPartition, Long> limits = throttle == null ? new HashMap<>() : throttle.waitingOffsets();
+		if (rewound.isEmpty() && limits.isEmpty()) {
+			return currentOffsets;
+		}
+		rewound.forEach((partition, offset) -> limits.merge(partition, offset, Math::min));
+		Map<TopicPartition, OffsetAndMetadata> committable = new HashMap<>(currentOffsets);
+		limits.forEach((partition, offset) -> {
+			if (committable.containsKey(partition)) {
+				committable.put(partition, new OffsetAndMetadata(offset));
+			}
+		});
+		return committable;
 	}
 
 	@Override
 	public void stop() {
-		//
+		if (retryScheduler != null) {
+			retryScheduler.shutdownNow();
+		}
+		if (workers != null) {
+			workers.shutdownNow();
+		}
+		HttpClientUtils.closeQuietly(httpClient);
+		if (asyncHttpClient != null) {
+			try {
+				asyncHttpClient.close();
+			} catch (IOException e) {
+				// ignore
+			}
+		}
+		if (signing != null) {
+			signing.close();
+		}
+		if (deadLetters != null) {
+			deadLetters.close();
+		}
+		if (responses != null) {
+			responses.close();
+		}
+		if (mbeans != null) {
+			mbeans.unregisterAll();
+		}
 	}
 
 	@Override
 	public void open(Collection<TopicPartition> partitions) {
 		super.open(partitions);
-		
-		//test
-		this.context.assignment().stream()
-		.forEach((tp) -> System.out.println("Task assigned partition "+ tp.partition() + " in topic "+ tp.topic()));
+		dispatcher.open(partitions);
+		LOGGER.fine("Task assigned " + partitions + ", now has " + context.assignment());
+	}
+
+	@Override
+	public void close(Collection<TopicPartition> partitions) {
+		dispatcher.close(partitions);
+		failures.forget(partitions);
+		if (throttle != null) {
+			throttle.forget(partitions);
+		}
+		if (budget != null) {
+			budget.forget(partitions);
+		}
+		paused.removeAll(partitions);
+		rewound.keySet().removeAll(partitions);
+		redelivered.removeAll(partitions);
+		redeliverySize = -1;
+		super.close(partitions);
 	}
 
 	/**
 	 * @param SinkRecord record 
-	 * here is the business logic to decide if trigger or not a FN function.
+	 * @param value the record's serialized payload
+	 * here is the business logic to decide if trigger or not a FN function:
+	 * the filter_conditions on fields of the payload.
 	 */
-	private boolean triggerFn(SinkRecord record){
-
-		boolean trigger  = true;
-
-		if(record.value() != null){
-			// do some validation here
-		}
-
-		return trigger;
+	private boolean triggerFn(SinkRecord record, ByteBuffer value){
+		return filter.isEmpty() || filter.accept(value);
 	}
 
-}
\ No newline at end of file
+}
\ No newline at end of file
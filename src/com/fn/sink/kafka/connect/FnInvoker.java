@@ -0,0 +1,24 @@
+package com.fn.sink.kafka.connect;
+
+import com.fn.sink.kafka.connect.http.FnResponse;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+
+/**
+ * A single function invocation, however it is carried out. Decorators such as
+ * {@link RetryingInvoker} wrap the blocking or non-blocking HTTP clients.
+ */
+@FunctionalInterface
+interface FnInvoker {
+
+	/**
+	 * @param headers Request headers added to the signed ones, may be empty
+	 * @return a future completed with the response body, or exceptionally
+	 * with the reason the invocation failed
+	 */
+	CompletableFuture<FnResponse> invoke(String functionUrl, HttpEntity payload, Header[] headers);
+
+}
@@ -0,0 +1,64 @@
+package com.fn.sink.kafka.connect;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Registers a task's MBeans under
+ * {@code com.fn.sink.kafka.connect:type=<type>,connector=<name>,task=<id>},
+ * with an {@code endpoint=<url>} key for per-endpoint MBeans, and unregisters them all when the task stops. Registration failures are
+ * logged, never fatal.
+ */
+class FnMBeans {
+
+	static final String DOMAIN = "com.fn.sink.kafka.connect";
+
+	private static final Logger LOGGER = Logger.getLogger(FnMBeans.class.getName());
+
+	private final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+	private final String connector;
+	private final String task;
+	private final List<ObjectName> registered = new ArrayList<>();
+
+	FnMBeans(String connector, String task) {
+		this.connector = connector;
+		this.task = task;
+	}
+
+	void register(String type, Object mbean) {
+		register(type, null, mbean);
+	}
+
+	synchronized void register(String type, String endpoint, Object mbean) {
+		try {
+			ObjectName name = new ObjectName(DOMAIN + ":type=" + type + ",connector=" + ObjectName.quote(connector)
+					+ ",task=" + ObjectName.quote(task) + (endpoint == null ? "" : ",endpoint=" + ObjectName.quote(endpoint)));
+			if (server.isRegistered(name)) {
+				server.unregisterMBean(name);
+			}
+			server.registerMBean(mbean, name);
+			registered.add(name);
+		} catch (JMException e) {
+			LOGGER.log(Level.WARNING, "Failed to register " + type + " MBean", e);
+		}
+	}
+
+	synchronized void unregisterAll() {
+		for (ObjectName name : registered) {
+			try {
+				server.unregisterMBean(name);
+			} catch (JMException e) {
+				// already gone
+			}
+		}
+		registered.clear();
+	}
+
+}
@@ -23,17 +23,64 @@ public class FnSinkConnector extends SinkConnector {
         return FnInvocationTask.class;
     }
 
+    /**
+     * One configuration per task, each with its task id. The rate limits, and
+     * with {@link FnInvocationConfig#SPLIT_TASK_BUDGETS_CONFIG} the connection,
+     * in-flight and payload budgets, are split across the tasks; with
+     * {@link FnInvocationConfig#WARMUP_FUNCTION_URLS_PER_TASK_CONFIG} the
+     * function URLs to warm up are dealt out to them round-robin.
+     */
     @Override
     public List<Map<String, String>> taskConfigs(int numOfMaxTasks) {
         List<Map<String, String>> taskConfigs = new ArrayList<>();
-        Map<String, String> properties = new HashMap<>();
-        properties.putAll(configProperties);
+        FnInvocationConfig config = new FnInvocationConfig(configProperties);
+        List<String> functionUrls = new ArrayList<>(
+                new RecordRouter(config.getRoutingRules(), config.getFunctionUrl()).functionUrls());
         for (int i = 0; i < numOfMaxTasks; i++) {
+            Map<String, String> properties = new HashMap<>(configProperties);
+            properties.put(FnInvocationConfig.TASK_ID_CONFIG, Integer.toString(i));
+            // the rate limits are for the connector, each task gets its share
+            if (config.getRateLimitInvocationsPerSec() > 0) {
+                properties.put(FnInvocationConfig.RATE_LIMIT_INVOCATIONS_PER_SEC_CONFIG,
+                        Double.toString(config.getRateLimitInvocationsPerSec() / numOfMaxTasks));
+            }
+            if (config.getRateLimitBytesPerSec() > 0) {
+                properties.put(FnInvocationConfig.RATE_LIMIT_BYTES_PER_SEC_CONFIG,
+                        Long.toString(Math.max(1, config.getRateLimitBytesPerSec() / numOfMaxTasks)));
+            }
+            if (config.isSplitTaskBudgets()) {
+                long maxConnections = share(config.getHttpMaxConnections(), i, numOfMaxTasks);
+                properties.put(FnInvocationConfig.HTTP_MAX_CONNECTIONS_CONFIG, Long.toString(maxConnections));
+                properties.put(FnInvocationConfig.HTTP_MAX_CONNECTIONS_PER_ROUTE_CONFIG,
+                        Long.toString(Math.min(config.getHttpMaxConnectionsPerRoute(), maxConnections)));
+                properties.put(FnInvocationConfig.MAX_IN_FLIGHT_CONFIG,
+                        Long.toString(share(config.getMaxInFlight(), i, numOfMaxTasks)));
+                if (config.getPayloadBudgetBytes() > 0) {
+                    properties.put(FnInvocationConfig.PAYLOAD_BUDGET_BYTES_CONFIG,
+                            Long.toString(share(config.getPayloadBudgetBytes(), i, numOfMaxTasks)));
+                }
+            }
+            if (config.isWarmupFunctionUrlsPerTask()) {
+                List<String> warmupUrls = new ArrayList<>();
+                for (int url = i; url < functionUrls.size(); url += numOfMaxTasks) {
+                    warmupUrls.add(functionUrls.get(url));
+                }
+                // ';' cannot appear in a URL of the routing rules either
+                properties.put(FnInvocationConfig.TASK_WARMUP_FUNCTION_URLS_CONFIG, String.join(";", warmupUrls));
+            }
             taskConfigs.add(properties);
         }
         return taskConfigs;
     }
 
+    /**
+     * A task's part of a connector-wide total, the remainder going to the
+     * first tasks, and never less than 1.
+     */
+    private static long share(long total, int task, int tasks) {
+        return Math.max(1, total / tasks + (task < total % tasks ? 1 : 0));
+    }
+
     @Override
     public void stop() {
     	// 
@@ -49,4 +96,4 @@ public class FnSinkConnector extends SinkConnector {
         return "v1.0";
     }
 
-}
\ No newline at end of file
+}
\ No newline at end of file
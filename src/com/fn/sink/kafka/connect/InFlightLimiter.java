@@ -0,0 +1,96 @@
+package com.fn.sink.kafka.connect;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.kafka.connect.errors.ConnectException;
+
+/**
+ * Bounds the number of invocations in flight. The task thread blocks in
+ * {@link #acquire} while the limit is reached; completions release it from
+ * any thread.
+ *
+ * <p>
+ * The limit is fixed here; {@link AdaptiveInFlightLimiter} moves it with the
+ * function's latency and throttling.
+ * </p>
+ */
+class InFlightLimiter {
+
+	protected final ReentrantLock lock = new ReentrantLock();
+	private final Condition changed = lock.newCondition();
+	private volatile int inFlight;
+	protected volatile int limit;
+
+	InFlightLimiter(int limit) {
+		this.limit = limit;
+	}
+
+	void acquire() {
+		lock.lock();
+		try {
+			while (inFlight >= limit) {
+				changed.await();
+			}
+			inFlight++;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ConnectException("Interrupted while waiting for in-flight invocations", e);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	void release() {
+		lock.lock();
+		try {
+			inFlight--;
+			changed.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Block until nothing is in flight.
+	 */
+	void awaitIdle() {
+		lock.lock();
+		try {
+			while (inFlight > 0) {
+				changed.await();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ConnectException("Interrupted while waiting for in-flight invocations", e);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Called after every attempt, retries included.
+	 *
+	 * @param rttNanos How long the attempt took
+	 * @param error Why it failed, or null
+	 */
+	void onSample(long rttNanos, Throwable error) {
+		// fixed limit
+	}
+
+	/**
+	 * Wake up waiters after the limit was raised.
+	 */
+	protected void limitChanged() {
+		changed.signalAll();
+	}
+
+	int getLimit() {
+		return limit;
+	}
+
+	int getInFlight() {
+		return inFlight;
+	}
+
+}
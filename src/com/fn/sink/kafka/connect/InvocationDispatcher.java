@@ -0,0 +1,52 @@
+package com.fn.sink.kafka.connect;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.connect.sink.SinkRecord;
+
+/**
+ * Strategy used by {@link FnInvocationTask} to hand invocations to the
+ * function, selected by {@link FnInvocationConfig#INVOCATION_MODE_CONFIG}.
+ */
+interface InvocationDispatcher {
+
+	/**
+	 * Invoke the function with the payload built from {@code records}. May
+	 * return before the invocation has completed.
+	 *
+	 * @param headers Request headers added to the signed ones, may be empty
+	 */
+	void dispatch(List<SinkRecord> records, String functionUrl, HttpEntity payload, Header[] headers);
+
+	/**
+	 * @return the group a record may be batched with; records of different
+	 * groups never share an invocation
+	 */
+	default Object batchGroup(SinkRecord record) {
+		return new TopicPartition(record.topic(), record.kafkaPartition());
+	}
+
+	/**
+	 * Block until every invocation dispatched so far has completed, so that
+	 * their offsets are safe to commit.
+	 */
+	void awaitInFlight();
+
+	/**
+	 * Called when partitions are assigned to the task.
+	 */
+	default void open(Collection<TopicPartition> partitions) {
+	}
+
+	/**
+	 * Called when partitions are revoked from the task, after their offsets
+	 * have been committed.
+	 */
+	default void close(Collection<TopicPartition> partitions) {
+	}
+
+}
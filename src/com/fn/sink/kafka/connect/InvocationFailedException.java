@@ -0,0 +1,64 @@
+package com.fn.sink.kafka.connect;
+
+import com.fn.sink.kafka.connect.http.FnInvocationException;
+
+import org.apache.kafka.connect.errors.ConnectException;
+
+/**
+ * Final outcome of an invocation that did not succeed, after any retries.
+ */
+class InvocationFailedException extends ConnectException {
+
+	private static final long serialVersionUID = 1L;
+
+	private final int attempts;
+	private final boolean retriable;
+	private final long elapsedMs;
+
+	InvocationFailedException(Throwable cause, int attempts, boolean retriable) {
+		this(cause, attempts, retriable, -1);
+	}
+
+	/**
+	 * @param elapsedMs Time from the first attempt to the final failure
+	 */
+	InvocationFailedException(Throwable cause, int attempts, boolean retriable, long elapsedMs) {
+		super("Function invocation failed after " + attempts + " attempt(s): " + cause, cause);
+		this.attempts = attempts;
+		this.retriable = retriable;
+		this.elapsedMs = elapsedMs;
+	}
+
+	int getAttempts() {
+		return attempts;
+	}
+
+	/**
+	 * @return true if the invocation may succeed when the records are
+	 * delivered again, false if it never will
+	 */
+	boolean isRetriable() {
+		return retriable;
+	}
+
+	/**
+	 * @return the HTTP status of the last response, or -1 if no response was
+	 * received
+	 */
+	int getStatusCode() {
+		return getCause() instanceof FnInvocationException ? ((FnInvocationException) getCause()).getStatusCode() : -1;
+	}
+
+	/**
+	 * @return time from the first attempt to the final failure, or -1 if
+	 * unknown
+	 */
+	long getElapsedMs() {
+		return elapsedMs;
+	}
+
+	long getRetryAfterMs() {
+		return RetryPolicy.retryAfterMs(getCause());
+	}
+
+}
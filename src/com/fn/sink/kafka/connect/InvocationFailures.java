@@ -0,0 +1,111 @@
+package com.fn.sink.kafka.connect;
+
+import com.fn.sink.kafka.connect.http.FnResponse;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.connect.sink.SinkRecord;
+
+/**
+ * Collects invocations that ran out of local retries, as the lowest failed
+ * offset of each partition. The task rewinds those partitions so that the
+ * framework delivers the records again. Fatal failures are sent to the
+ * {@link DeadLetterQueue} if there is one, otherwise logged and dropped:
+ * delivering them again would not help.
+ */
+class InvocationFailures implements InvocationListener {
+
+	private static final Logger LOGGER = Logger.getLogger(InvocationFailures.class.getName());
+
+	private final long backoffMs;
+	private final ConcurrentMap<TopicPartition, Long> rewinds = new ConcurrentHashMap<>();
+	private final AtomicLong retryAfterMs = new AtomicLong(-1);
+	private final DeadLetterQueue deadLetters;
+
+	/**
+	 * @param backoffMs Minimum delay before failed records are delivered again
+	 * @param deadLetters Where fatal failures go, or null to drop them
+	 */
+	InvocationFailures(long backoffMs, DeadLetterQueue deadLetters) {
+		this.backoffMs = backoffMs;
+		this.deadLetters = deadLetters;
+	}
+
+	@Override
+	public void onSuccess(List<SinkRecord> records, FnResponse response) {
+		// nothing to do
+	}
+
+	@Override
+	public void onFailure(List<SinkRecord> records, Throwable error) {
+		InvocationFailedException failure = error instanceof InvocationFailedException
+				? (InvocationFailedException) error
+				: new InvocationFailedException(error, 1, false);
+		SinkRecord first = records.get(0);
+		if (!failure.isRetriable()) {
+			if (deadLetters != null) {
+				LOGGER.log(Level.WARNING, "Dead-lettering " + records.size() + " record(s) from " + first.topic() + "-" + first.kafkaPartition()
+						+ " at offset " + first.kafkaOffset() + ": " + failure.getMessage());
+				deadLetters.add(records, failure);
+				return;
+			}
+			LOGGER.log(Level.SEVERE, "Dropping " + records.size() + " record(s) from " + first.topic() + "-" + first.kafkaPartition()
+					+ " at offset " + first.kafkaOffset(), failure);
+			return;
+		}
+		LOGGER.log(Level.WARNING, "Redelivering " + first.topic() + "-" + first.kafkaPartition()
+				+ " from offset " + first.kafkaOffset() + ": " + failure.getMessage());
+		for (SinkRecord record : records) {
+			rewinds.merge(new TopicPartition(record.topic(), record.kafkaPartition()), record.kafkaOffset(), Math::min);
+		}
+		retryAfterMs.accumulateAndGet(failure.getRetryAfterMs(), Math::max);
+	}
+
+	boolean isEmpty() {
+		return rewinds.isEmpty();
+	}
+
+	/**
+	 * @return true if records of this record's partition will be delivered
+	 * again, so there is no point invoking it now
+	 */
+	boolean hasFailed(SinkRecord record) {
+		return !rewinds.isEmpty() && rewinds.containsKey(new TopicPartition(record.topic(), record.kafkaPartition()));
+	}
+
+	/**
+	 * @return the offset to rewind each failed partition to, forgetting them
+	 */
+	Map<TopicPartition, Long> drainRewinds() {
+		Map<TopicPartition, Long> drained = new HashMap<>();
+		for (TopicPartition partition : rewinds.keySet()) {
+			Long offset = rewinds.remove(partition);
+			if (offset != null) {
+				drained.put(partition, offset);
+			}
+		}
+		return drained;
+	}
+
+	/**
+	 * @return how long to wait before the records are delivered again,
+	 * honouring the longest Retry-After seen since the last call
+	 */
+	long drainBackoffMs() {
+		return Math.max(backoffMs, retryAfterMs.getAndSet(-1));
+	}
+
+	void forget(Collection<TopicPartition> partitions) {
+		rewinds.keySet().removeAll(partitions);
+	}
+
+}
@@ -0,0 +1,43 @@
+package com.fn.sink.kafka.connect;
+
+import com.fn.sink.kafka.connect.http.FnResponse;
+
+import java.util.List;
+
+import org.apache.kafka.connect.sink.SinkRecord;
+
+/**
+ * Notified by an {@link InvocationDispatcher} once an invocation, including
+ * its retries, has completed. May be called from any thread.
+ */
+interface InvocationListener {
+
+	void onSuccess(List<SinkRecord> records, FnResponse response);
+
+	/**
+	 * @param error Usually an {@link InvocationFailedException}
+	 */
+	void onFailure(List<SinkRecord> records, Throwable error);
+
+	/**
+	 * @return a listener notifying this one, then {@code next}
+	 */
+	default InvocationListener andThen(InvocationListener next) {
+		InvocationListener first = this;
+		return new InvocationListener() {
+
+			@Override
+			public void onSuccess(List<SinkRecord> records, FnResponse response) {
+				first.onSuccess(records, response);
+				next.onSuccess(records, response);
+			}
+
+			@Override
+			public void onFailure(List<SinkRecord> records, Throwable error) {
+				first.onFailure(records, error);
+				next.onFailure(records, error);
+			}
+		};
+	}
+
+}
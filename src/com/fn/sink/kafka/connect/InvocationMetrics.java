@@ -0,0 +1,188 @@
+package com.fn.sink.kafka.connect;
+
+import com.fn.sink.kafka.connect.http.FnInvocationTrace;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histograms of HTTP invocations. Recording only touches
+ * striped counters and fixed histogram buckets, so it neither allocates nor
+ * locks on the invocation path.
+ */
+class InvocationMetrics implements InvocationMetricsMBean {
+
+	private static final double MICROS_PER_MS = 1000.0;
+
+	private final Meter invocations = new Meter();
+	private final Meter bytes = new Meter();
+	private final LongAdder responseBytes = new LongAdder();
+	private final LongAdder inFlight = new LongAdder();
+	private final LongAdder throttled = new LongAdder();
+	private final LongAdder serverErrors = new LongAdder();
+	private final LongAdder clientErrors = new LongAdder();
+	private final LongAdder ioErrors = new LongAdder();
+	private final LogLinearHistogram total = new LogLinearHistogram();
+	private final LogLinearHistogram server = new LogLinearHistogram();
+	private final LogLinearHistogram signing = new LogLinearHistogram();
+	private final LogLinearHistogram connect = new LogLinearHistogram();
+
+	void started() {
+		inFlight.increment();
+	}
+
+	void completed(FnInvocationTrace trace) {
+		inFlight.decrement();
+		invocations.mark(1);
+		bytes.mark(trace.getRequestBytes());
+		responseBytes.add(trace.getResponseBytes());
+		int status = trace.getStatusCode();
+		if (status == 0) {
+			ioErrors.increment();
+		} else if (status == 429) {
+			throttled.increment();
+		} else if (status >= 500) {
+			serverErrors.increment();
+		} else if (status >= 300) {
+			clientErrors.increment();
+		}
+		total.record(micros(trace.getTotalNanos()));
+		recordIfReached(server, trace.getServerNanos());
+		recordIfReached(signing, trace.getSigningNanos());
+		recordIfReached(connect, trace.getConnectNanos());
+	}
+
+	private static void recordIfReached(LogLinearHistogram histogram, long nanos) {
+		if (nanos >= 0) {
+			histogram.record(micros(nanos));
+		}
+	}
+
+	private static long micros(long nanos) {
+		return nanos / 1000;
+	}
+
+	private static double ms(long micros) {
+		return micros / MICROS_PER_MS;
+	}
+
+	@Override
+	public long getInvocationCount() {
+		return invocations.count();
+	}
+
+	@Override
+	public double getInvocationRate() {
+		return invocations.oneMinuteRate();
+	}
+
+	@Override
+	public long getByteCount() {
+		return bytes.count();
+	}
+
+	@Override
+	public double getByteRate() {
+		return bytes.oneMinuteRate();
+	}
+
+	@Override
+	public long getResponseByteCount() {
+		return responseBytes.sum();
+	}
+
+	@Override
+	public long getInFlight() {
+		return inFlight.sum();
+	}
+
+	@Override
+	public long getThrottledCount() {
+		return throttled.sum();
+	}
+
+	@Override
+	public long getServerErrorCount() {
+		return serverErrors.sum();
+	}
+
+	@Override
+	public long getClientErrorCount() {
+		return clientErrors.sum();
+	}
+
+	@Override
+	public long getIoErrorCount() {
+		return ioErrors.sum();
+	}
+
+	@Override
+	public double getTotalLatencyP50Ms() {
+		return ms(total.percentile(0.5));
+	}
+
+	@Override
+	public double getTotalLatencyP99Ms() {
+		return ms(total.percentile(0.99));
+	}
+
+	@Override
+	public double getTotalLatencyP999Ms() {
+		return ms(total.percentile(0.999));
+	}
+
+	@Override
+	public double getTotalLatencyMaxMs() {
+		return ms(total.max());
+	}
+
+	@Override
+	public double getTotalLatencyMeanMs() {
+		return total.mean() / MICROS_PER_MS;
+	}
+
+	@Override
+	public double getServerLatencyP50Ms() {
+		return ms(server.percentile(0.5));
+	}
+
+	@Override
+	public double getServerLatencyP99Ms() {
+		return ms(server.percentile(0.99));
+	}
+
+	@Override
+	public double getServerLatencyMaxMs() {
+		return ms(server.max());
+	}
+
+	@Override
+	public double getSigningLatencyP50Ms() {
+		return ms(signing.percentile(0.5));
+	}
+
+	@Override
+	public double getSigningLatencyP99Ms() {
+		return ms(signing.percentile(0.99));
+	}
+
+	@Override
+	public double getSigningLatencyMaxMs() {
+		return ms(signing.max());
+	}
+
+	@Override
+	public double getConnectLatencyP50Ms() {
+		return ms(connect.percentile(0.5));
+	}
+
+	@Override
+	public double getConnectLatencyP99Ms() {
+		return ms(connect.percentile(0.99));
+	}
+
+	@Override
+	public double getConnectLatencyMaxMs() {
+		return ms(connect.max());
+	}
+
+}
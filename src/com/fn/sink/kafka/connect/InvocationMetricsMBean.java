@@ -0,0 +1,83 @@
+package com.fn.sink.kafka.connect;
+
+/**
+ * JMX view of the {@link InvocationMetrics} of one function URL, or of all of
+ * a task's. Latencies are in milliseconds since the task started; rates are
+ * per second over about the last minute.
+ */
+public interface InvocationMetricsMBean {
+
+	/**
+	 * @return the number of HTTP invocations, retries included
+	 */
+	long getInvocationCount();
+
+	double getInvocationRate();
+
+	/**
+	 * @return the number of request body bytes sent
+	 */
+	long getByteCount();
+
+	double getByteRate();
+
+	long getResponseByteCount();
+
+	long getInFlight();
+
+	/**
+	 * @return the number of 429 responses
+	 */
+	long getThrottledCount();
+
+	/**
+	 * @return the number of 5xx responses
+	 */
+	long getServerErrorCount();
+
+	/**
+	 * @return the number of other non-2xx responses
+	 */
+	long getClientErrorCount();
+
+	/**
+	 * @return the number of invocations that got no response
+	 */
+	long getIoErrorCount();
+
+	double getTotalLatencyP50Ms();
+
+	double getTotalLatencyP99Ms();
+
+	double getTotalLatencyP999Ms();
+
+	double getTotalLatencyMaxMs();
+
+	double getTotalLatencyMeanMs();
+
+	/**
+	 * @return the median time from the request being written to the response
+	 * headers
+	 */
+	double getServerLatencyP50Ms();
+
+	double getServerLatencyP99Ms();
+
+	double getServerLatencyMaxMs();
+
+	double getSigningLatencyP50Ms();
+
+	double getSigningLatencyP99Ms();
+
+	double getSigningLatencyMaxMs();
+
+	/**
+	 * @return the median time to lease a connection, and open it if needed
+	 */
+	double getConnectLatencyP50Ms();
+
+	double getConnectLatencyP99Ms();
+
+	double getConnectLatencyMaxMs();
+
+}
@@ -0,0 +1,155 @@
+package com.fn.sink.kafka.connect;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpEntity;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.connect.sink.SinkRecord;
+
+/**
+ * Holds invocations to this task's share of the connector's rate limits.
+ * Invocations over the limit wait here in arrival order rather than blocking
+ * the task thread; while any are waiting the task pauses its partitions and
+ * dispatches them from later calls to put.
+ *
+ * <p>
+ * Only used from the task thread.
+ * </p>
+ */
+class InvocationThrottle {
+
+	private final TokenBucket invocations;
+	private final TokenBucket bytes;
+	private final Deque<Invocation> waiting = new ArrayDeque<>();
+
+	/**
+	 * @param invocationsPerSec Invocation rate, or 0 for no limit
+	 * @param bytesPerSec Body byte rate, or 0 for no limit
+	 */
+	InvocationThrottle(double invocationsPerSec, long bytesPerSec) {
+		this.invocations = invocationsPerSec > 0 ? new TokenBucket(invocationsPerSec) : null;
+		this.bytes = bytesPerSec > 0 ? new TokenBucket(bytesPerSec) : null;
+	}
+
+	/**
+	 * Dispatch an invocation now if the limits allow and nothing is waiting
+	 * ahead of it, otherwise queue it.
+	 */
+	void submit(List<SinkRecord> records, String functionUrl, HttpEntity entity, Dispatch dispatch) {
+		if (waiting.isEmpty() && tryAcquire(entity)) {
+			dispatch.dispatch(records, functionUrl, entity);
+		} else {
+			waiting.add(new Invocation(records, functionUrl, entity));
+		}
+	}
+
+	/**
+	 * Dispatch waiting invocations for as long as the limits allow.
+	 */
+	void drain(Dispatch dispatch) {
+		while (!waiting.isEmpty() && tryAcquire(waiting.peek().entity)) {
+			Invocation invocation = waiting.poll();
+			dispatch.dispatch(invocation.records, invocation.functionUrl, invocation.entity);
+		}
+	}
+
+	boolean isEmpty() {
+		return waiting.isEmpty();
+	}
+
+	/**
+	 * @return milliseconds until the next waiting invocation may be dispatched
+	 */
+	long waitMs() {
+		long now = System.nanoTime();
+		long nanos = 0;
+		if (invocations != null) {
+			nanos = Math.max(nanos, invocations.nanosUntilAvailable(now));
+		}
+		if (bytes != null) {
+			nanos = Math.max(nanos, bytes.nanosUntilAvailable(now));
+		}
+		return Math.max(1, TimeUnit.NANOSECONDS.toMillis(nanos));
+	}
+
+	/**
+	 * @return the lowest waiting offset of each partition, which must not be
+	 * committed yet
+	 */
+	Map<TopicPartition, Long> waitingOffsets() {
+		Map<TopicPartition, Long> offsets = new HashMap<>();
+		for (Invocation invocation : waiting) {
+			for (SinkRecord record : invocation.records) {
+				offsets.merge(new TopicPartition(record.topic(), record.kafkaPartition()), record.kafkaOffset(), Math::min);
+			}
+		}
+		return offsets;
+	}
+
+	/**
+	 * @return the payload bytes of the waiting invocations, per partition
+	 */
+	Map<TopicPartition, Long> waitingBytes() {
+		Map<TopicPartition, Long> bytes = new HashMap<>();
+		for (Invocation invocation : waiting) {
+			SinkRecord first = invocation.records.get(0);
+			bytes.merge(new TopicPartition(first.topic(), first.kafkaPartition()),
+					Math.max(0, invocation.entity.getContentLength()), Long::sum);
+		}
+		return bytes;
+	}
+
+	/**
+	 * Drop waiting invocations of revoked partitions; their new owner gets
+	 * them again from the last committed offset.
+	 */
+	void forget(Collection<TopicPartition> partitions) {
+		for (Iterator<Invocation> it = waiting.iterator(); it.hasNext();) {
+			SinkRecord first = it.next().records.get(0);
+			if (partitions.contains(new TopicPartition(first.topic(), first.kafkaPartition()))) {
+				it.remove();
+			}
+		}
+	}
+
+	private boolean tryAcquire(HttpEntity entity) {
+		long now = System.nanoTime();
+		if ((invocations != null && !invocations.isAvailable(now)) || (bytes != null && !bytes.isAvailable(now))) {
+			return false;
+		}
+		if (invocations != null) {
+			invocations.take(1, now);
+		}
+		if (bytes != null) {
+			bytes.take(Math.max(0, entity.getContentLength()), now);
+		}
+		return true;
+	}
+
+	@FunctionalInterface
+	interface Dispatch {
+		void dispatch(List<SinkRecord> records, String functionUrl, HttpEntity entity);
+	}
+
+	private static final class Invocation {
+
+		private final List<SinkRecord> records;
+		private final String functionUrl;
+		private final HttpEntity entity;
+
+		private Invocation(List<SinkRecord> records, String functionUrl, HttpEntity entity) {
+			this.records = records;
+			this.functionUrl = functionUrl;
+			this.entity = entity;
+		}
+
+	}
+
+}
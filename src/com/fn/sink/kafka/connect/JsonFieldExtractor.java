@@ -0,0 +1,144 @@
+package com.fn.sink.kafka.connect;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Finds the values of several fields of a JSON document in one pass over its
+ * raw UTF-8 bytes, like {@link JsonFieldScanner} does for one field. The
+ * paths are merged into a tree of keys so that objects no path leads into
+ * are skipped token by token, and scanning stops as soon as every field has
+ * been found.
+ *
+ * <p>
+ * Not thread safe: the returned array is reused between calls.
+ * </p>
+ */
+class JsonFieldExtractor {
+
+	private static final int DONE = -2;
+
+	private final Node root = new Node(null);
+	private final int[] starts;
+	private int remaining;
+
+	JsonFieldExtractor(List<String> paths) {
+		this.starts = new int[paths.size()];
+		for (int i = 0; i < paths.size(); i++) {
+			Node node = root;
+			for (String key : paths.get(i).split("\\.")) {
+				node = node.child(key.getBytes(StandardCharsets.UTF_8));
+			}
+			node.pathIndex = i;
+		}
+	}
+
+	/**
+	 * @param json A JSON document between its position and limit
+	 * @return for each path, in the order given, the absolute index of the
+	 * first byte of its value, or {@link JsonFieldScanner#MISSING}
+	 */
+	int[] extract(ByteBuffer json) {
+		Arrays.fill(starts, JsonFieldScanner.MISSING);
+		remaining = starts.length;
+		if (remaining > 0) {
+			scanObject(json, JsonFieldScanner.skipWhitespace(json, json.position(), json.limit()), json.limit(), root);
+		}
+		return starts;
+	}
+
+	/**
+	 * @return the index just after the object starting at {@code i},
+	 * {@link #DONE} once every field was found, or
+	 * {@link JsonFieldScanner#MISSING} if it is not a well formed object
+	 */
+	private int scanObject(ByteBuffer json, int i, int limit, Node node) {
+		if (i >= limit || json.get(i) != '{') {
+			return JsonFieldScanner.MISSING;
+		}
+		i = JsonFieldScanner.skipWhitespace(json, i + 1, limit);
+		if (i < limit && json.get(i) == '}') {
+			return i + 1;
+		}
+		while (i < limit && json.get(i) == '"') {
+			int keyEnd = JsonFieldScanner.stringEnd(json, i, limit);
+			if (keyEnd == JsonFieldScanner.MISSING) {
+				return JsonFieldScanner.MISSING;
+			}
+			Node child = node.find(json, i + 1, keyEnd);
+			i = JsonFieldScanner.skipWhitespace(json, keyEnd + 1, limit);
+			if (i >= limit || json.get(i) != ':') {
+				return JsonFieldScanner.MISSING;
+			}
+			i = JsonFieldScanner.skipWhitespace(json, i + 1, limit);
+			int end;
+			if (child == null) {
+				end = JsonFieldScanner.valueEnd(json, i, limit);
+			} else {
+				// the first occurrence of a duplicated key wins
+				if (child.pathIndex >= 0 && starts[child.pathIndex] == JsonFieldScanner.MISSING) {
+					starts[child.pathIndex] = i;
+					if (--remaining == 0) {
+						return DONE;
+					}
+				}
+				if (child.children.isEmpty() || i >= limit || json.get(i) != '{') {
+					end = JsonFieldScanner.valueEnd(json, i, limit);
+				} else {
+					end = scanObject(json, i, limit, child);
+					if (end == DONE) {
+						return DONE;
+					}
+				}
+			}
+			if (end == JsonFieldScanner.MISSING) {
+				return JsonFieldScanner.MISSING;
+			}
+			i = JsonFieldScanner.skipWhitespace(json, end, limit);
+			if (i < limit && json.get(i) == '}') {
+				return i + 1;
+			}
+			if (i >= limit || json.get(i) != ',') {
+				return JsonFieldScanner.MISSING;
+			}
+			i = JsonFieldScanner.skipWhitespace(json, i + 1, limit);
+		}
+		return JsonFieldScanner.MISSING;
+	}
+
+	private static final class Node {
+
+		private final byte[] key;
+		private final List<Node> children = new ArrayList<>();
+		private int pathIndex = -1;
+
+		private Node(byte[] key) {
+			this.key = key;
+		}
+
+		private Node child(byte[] childKey) {
+			for (Node child : children) {
+				if (Arrays.equals(child.key, childKey)) {
+					return child;
+				}
+			}
+			Node child = new Node(childKey);
+			children.add(child);
+			return child;
+		}
+
+		private Node find(ByteBuffer json, int start, int end) {
+			for (Node child : children) {
+				if (JsonFieldScanner.regionEquals(json, start, end, child.key)) {
+					return child;
+				}
+			}
+			return null;
+		}
+
+	}
+
+}
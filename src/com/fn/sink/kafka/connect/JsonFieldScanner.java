@@ -0,0 +1,236 @@
+package com.fn.sink.kafka.connect;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+/**
+ * Finds the value of one field of a JSON document in its raw UTF-8 bytes,
+ * without decoding or parsing the document. Fields before the one looked for
+ * are skipped over token by token and scanning stops as soon as it is found.
+ *
+ * <p>
+ * The path is a dot separated list of object keys, e.g. {@code order.type}.
+ * Keys are compared byte for byte, so keys written with escape sequences are
+ * not found. Malformed documents are treated as if the field was missing.
+ * </p>
+ */
+class JsonFieldScanner {
+
+	static final int MISSING = -1;
+
+	private static final Gson GSON = new Gson();
+
+	private final String path;
+	private final byte[][] keys;
+
+	JsonFieldScanner(String path) {
+		this.path = path;
+		String[] names = path.split("\\.");
+		this.keys = new byte[names.length][];
+		for (int i = 0; i < names.length; i++) {
+			keys[i] = names[i].getBytes(StandardCharsets.UTF_8);
+		}
+	}
+
+	String path() {
+		return path;
+	}
+
+	/**
+	 * @param json A JSON document between its position and limit
+	 * @return the absolute index of the first byte of the field's value, or
+	 * {@link #MISSING}
+	 */
+	int find(ByteBuffer json) {
+		int limit = json.limit();
+		int i = skipWhitespace(json, json.position(), limit);
+		for (byte[] key : keys) {
+			if (i >= limit || json.get(i) != '{') {
+				return MISSING;
+			}
+			i = skipWhitespace(json, i + 1, limit);
+			while (true) {
+				if (i >= limit || json.get(i) != '"') {
+					// end of object, or malformed
+					return MISSING;
+				}
+				int keyEnd = stringEnd(json, i, limit);
+				if (keyEnd == MISSING) {
+					return MISSING;
+				}
+				boolean found = regionEquals(json, i + 1, keyEnd, key);
+				i = skipWhitespace(json, keyEnd + 1, limit);
+				if (i >= limit || json.get(i) != ':') {
+					return MISSING;
+				}
+				i = skipWhitespace(json, i + 1, limit);
+				if (found) {
+					break;
+				}
+				i = valueEnd(json, i, limit);
+				if (i == MISSING) {
+					return MISSING;
+				}
+				i = skipWhitespace(json, i, limit);
+				if (i >= limit || json.get(i) != ',') {
+					return MISSING;
+				}
+				i = skipWhitespace(json, i + 1, limit);
+			}
+		}
+		return i < limit ? i : MISSING;
+	}
+
+	/**
+	 * @param start Index returned by {@link #find}
+	 * @param literal A string's content or a scalar's token, UTF-8 encoded
+	 * @return true if the value is the string {@code literal}, or the scalar
+	 * (number, true, false, null) written exactly as {@code literal}
+	 */
+	static boolean valueEquals(ByteBuffer json, int start, byte[] literal) {
+		int limit = json.limit();
+		if (json.get(start) == '"') {
+			int end = stringEnd(json, start, limit);
+			if (end == MISSING) {
+				return false;
+			}
+			if (regionEquals(json, start + 1, end, literal)) {
+				return true;
+			}
+			// only an escaped string can still be equal
+			return hasEscape(json, start + 1, end)
+					&& Arrays.equals(literal, text(json, start).getBytes(StandardCharsets.UTF_8));
+		}
+		int end = valueEnd(json, start, limit);
+		return end != MISSING && regionEquals(json, start, end, literal);
+	}
+
+	/**
+	 * @param start Index returned by {@link #find}
+	 * @return a string value's decoded content, or the raw JSON of any other
+	 * value; null if malformed
+	 */
+	static String text(ByteBuffer json, int start) {
+		int limit = json.limit();
+		int end = valueEnd(json, start, limit);
+		if (end == MISSING) {
+			return null;
+		}
+		String raw = decode(json, start, end);
+		if (json.get(start) != '"') {
+			return raw;
+		}
+		if (!hasEscape(json, start + 1, end - 1)) {
+			return raw.substring(1, raw.length() - 1);
+		}
+		try {
+			return GSON.fromJson(raw, String.class);
+		} catch (JsonParseException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * @return the index just after the value starting at {@code i}, or
+	 * {@link #MISSING} if it is malformed or truncated
+	 */
+	static int valueEnd(ByteBuffer json, int i, int limit) {
+		if (i >= limit) {
+			return MISSING;
+		}
+		byte c = json.get(i);
+		if (c == '"') {
+			int end = stringEnd(json, i, limit);
+			return end == MISSING ? MISSING : end + 1;
+		}
+		if (c == '{' || c == '[') {
+			int depth = 0;
+			while (i < limit) {
+				c = json.get(i);
+				if (c == '"') {
+					i = stringEnd(json, i, limit);
+					if (i == MISSING) {
+						return MISSING;
+					}
+				} else if (c == '{' || c == '[') {
+					depth++;
+				} else if ((c == '}' || c == ']') && --depth == 0) {
+					return i + 1;
+				}
+				i++;
+			}
+			return MISSING;
+		}
+		while (i < limit) {
+			c = json.get(i);
+			if (c == ',' || c == '}' || c == ']' || isWhitespace(c)) {
+				break;
+			}
+			i++;
+		}
+		return i;
+	}
+
+	/**
+	 * @return the index of the quote closing the string opening at {@code i}
+	 */
+	static int stringEnd(ByteBuffer json, int i, int limit) {
+		for (int j = i + 1; j < limit; j++) {
+			byte c = json.get(j);
+			if (c == '\\') {
+				j++;
+			} else if (c == '"') {
+				return j;
+			}
+		}
+		return MISSING;
+	}
+
+	static int skipWhitespace(ByteBuffer json, int i, int limit) {
+		while (i < limit && isWhitespace(json.get(i))) {
+			i++;
+		}
+		return i;
+	}
+
+	private static boolean isWhitespace(byte c) {
+		return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+	}
+
+	static boolean regionEquals(ByteBuffer json, int start, int end, byte[] expected) {
+		if (end - start != expected.length) {
+			return false;
+		}
+		for (int i = 0; i < expected.length; i++) {
+			if (json.get(start + i) != expected[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean hasEscape(ByteBuffer json, int start, int end) {
+		for (int i = start; i < end; i++) {
+			if (json.get(i) == '\\') {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static String decode(ByteBuffer json, int start, int end) {
+		if (json.hasArray()) {
+			return new String(json.array(), json.arrayOffset() + start, end - start, StandardCharsets.UTF_8);
+		}
+		byte[] bytes = new byte[end - start];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = json.get(start + i);
+		}
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+}
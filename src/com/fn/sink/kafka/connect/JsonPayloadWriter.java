@@ -0,0 +1,217 @@
+package com.fn.sink.kafka.connect;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.kafka.connect.data.Field;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.errors.DataException;
+
+/**
+ * Writes Connect values straight to UTF-8 JSON bytes, without building an
+ * intermediate tree. The scratch buffer is kept between calls, so only the
+ * returned array is allocated once the writer has warmed up.
+ *
+ * <p>
+ * Not thread safe; each task owns its own writer.
+ * </p>
+ */
+class JsonPayloadWriter {
+
+	private static final byte[] HEX = "0123456789abcdef".getBytes();
+	private static final byte[] NULL = "null".getBytes();
+	private static final byte[] TRUE = "true".getBytes();
+	private static final byte[] FALSE = "false".getBytes();
+
+	private byte[] buffer = new byte[1024];
+	private int position;
+
+	/**
+	 * @param value A Connect value, typically a {@link Struct} or a
+	 * {@link Map}
+	 * @param schema The value's schema, or null for schemaless values
+	 * @return the JSON encoding of the value
+	 */
+	byte[] write(Object value, Schema schema) {
+		position = 0;
+		writeValue(value, schema);
+		return Arrays.copyOf(buffer, position);
+	}
+
+	private void writeValue(Object value, Schema schema) {
+		if (value == null) {
+			writeRaw(NULL);
+		} else if (value instanceof Struct) {
+			writeStruct((Struct) value);
+		} else if (value instanceof Map) {
+			writeMap((Map<?, ?>) value, schema);
+		} else if (value instanceof Collection) {
+			writeArray((Collection<?>) value, schema);
+		} else if (value instanceof String) {
+			writeString((String) value);
+		} else if (value instanceof Boolean) {
+			writeRaw((Boolean) value ? TRUE : FALSE);
+		} else if (value instanceof Float || value instanceof Double) {
+			double number = ((Number) value).doubleValue();
+			if (Double.isNaN(number) || Double.isInfinite(number)) {
+				// not representable as a JSON number
+				writeString(value.toString());
+			} else {
+				writeAscii(value.toString());
+			}
+		} else if (value instanceof BigDecimal) {
+			writeAscii(((BigDecimal) value).toPlainString());
+		} else if (value instanceof Number) {
+			writeAscii(value.toString());
+		} else if (value instanceof Date) {
+			// Connect Date, Time and Timestamp logical types
+			writeAscii(Long.toString(((Date) value).getTime()));
+		} else if (value instanceof byte[]) {
+			writeAscii('"' + Base64.getEncoder().encodeToString((byte[]) value) + '"');
+		} else if (value instanceof ByteBuffer) {
+			ByteBuffer bytes = ((ByteBuffer) value).duplicate();
+			byte[] copy = new byte[bytes.remaining()];
+			bytes.get(copy);
+			writeAscii('"' + Base64.getEncoder().encodeToString(copy) + '"');
+		} else {
+			throw new DataException("Cannot write value of type " + value.getClass().getName() + " as JSON");
+		}
+	}
+
+	private void writeStruct(Struct struct) {
+		writeByte('{');
+		List<Field> fields = struct.schema().fields();
+		for (int i = 0; i < fields.size(); i++) {
+			Field field = fields.get(i);
+			if (i > 0) {
+				writeByte(',');
+			}
+			writeString(field.name());
+			writeByte(':');
+			writeValue(struct.get(field), field.schema());
+		}
+		writeByte('}');
+	}
+
+	private void writeMap(Map<?, ?> map, Schema schema) {
+		Schema valueSchema = schema == null ? null : schema.valueSchema();
+		writeByte('{');
+		boolean first = true;
+		for (Map.Entry<?, ?> entry : map.entrySet()) {
+			if (!first) {
+				writeByte(',');
+			}
+			first = false;
+			writeString(String.valueOf(entry.getKey()));
+			writeByte(':');
+			writeValue(entry.getValue(), valueSchema);
+		}
+		writeByte('}');
+	}
+
+	private void writeArray(Collection<?> values, Schema schema) {
+		Schema valueSchema = schema == null ? null : schema.valueSchema();
+		writeByte('[');
+		boolean first = true;
+		for (Object value : values) {
+			if (!first) {
+				writeByte(',');
+			}
+			first = false;
+			writeValue(value, valueSchema);
+		}
+		writeByte(']');
+	}
+
+	/**
+	 * Write a quoted, escaped string, encoding it to UTF-8 on the fly.
+	 */
+	private void writeString(String value) {
+		ensureCapacity(value.length() + 2);
+		writeByte('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '"' || c == '\\') {
+				writeByte('\\');
+				writeByte(c);
+			} else if (c < 0x20) {
+				switch (c) {
+				case '\n':
+					writeByte('\\');
+					writeByte('n');
+					break;
+				case '\r':
+					writeByte('\\');
+					writeByte('r');
+					break;
+				case '\t':
+					writeByte('\\');
+					writeByte('t');
+					break;
+				default:
+					ensureCapacity(6);
+					writeByte('\\');
+					writeByte('u');
+					writeByte('0');
+					writeByte('0');
+					buffer[position++] = HEX[c >> 4];
+					buffer[position++] = HEX[c & 0xF];
+				}
+			} else if (c < 0x80) {
+				writeByte(c);
+			} else if (c < 0x800) {
+				ensureCapacity(2);
+				buffer[position++] = (byte) (0xC0 | (c >> 6));
+				buffer[position++] = (byte) (0x80 | (c & 0x3F));
+			} else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+				int codePoint = Character.toCodePoint(c, value.charAt(++i));
+				ensureCapacity(4);
+				buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+				buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+				buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+				buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+			} else if (Character.isSurrogate(c)) {
+				// unpaired surrogate, as String.getBytes would
+				writeByte('?');
+			} else {
+				ensureCapacity(3);
+				buffer[position++] = (byte) (0xE0 | (c >> 12));
+				buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+				buffer[position++] = (byte) (0x80 | (c & 0x3F));
+			}
+		}
+		writeByte('"');
+	}
+
+	private void writeAscii(String value) {
+		ensureCapacity(value.length());
+		for (int i = 0; i < value.length(); i++) {
+			buffer[position++] = (byte) value.charAt(i);
+		}
+	}
+
+	private void writeRaw(byte[] bytes) {
+		ensureCapacity(bytes.length);
+		System.arraycopy(bytes, 0, buffer, position, bytes.length);
+		position += bytes.length;
+	}
+
+	private void writeByte(int b) {
+		ensureCapacity(1);
+		buffer[position++] = (byte) b;
+	}
+
+	private void ensureCapacity(int extra) {
+		if (position + extra > buffer.length) {
+			buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+		}
+	}
+
+}
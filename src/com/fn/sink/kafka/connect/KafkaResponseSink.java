@@ -0,0 +1,95 @@
+package com.fn.sink.kafka.connect;
+
+import com.fn.sink.kafka.connect.http.FnResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.connect.sink.SinkRecord;
+
+/**
+ * Produces responses to a Kafka topic with a producer of its own. Sends are
+ * asynchronous; a failed send is reported by the next {@link #flush}, so that
+ * the offsets of its records are not committed.
+ */
+class KafkaResponseSink implements ResponseSink {
+
+	// send runs on the thread completing the invocation, an I/O reactor
+	// thread in async mode, so it must not wait long for metadata or buffer
+	// space; a send that times out fails the next flush
+	private static final String MAX_BLOCK_MS = "1000";
+
+	private final String topic;
+	private final KafkaProducer<byte[], byte[]> producer;
+	private volatile Exception sendFailure;
+
+	/**
+	 * @param producerConfig Producer settings, e.g. security, overriding the
+	 * defaults
+	 */
+	KafkaResponseSink(String topic, String bootstrapServers, String clientId, Map<String, Object> producerConfig) {
+		Properties props = new Properties();
+		props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+		props.put(ProducerConfig.CLIENT_ID_CONFIG, clientId);
+		props.put(ProducerConfig.ACKS_CONFIG, "all");
+		props.put(ProducerConfig.LINGER_MS_CONFIG, "5");
+		props.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, MAX_BLOCK_MS);
+		props.putAll(producerConfig);
+		this.topic = topic;
+		this.producer = new KafkaProducer<>(props, new ByteArraySerializer(), new ByteArraySerializer());
+	}
+
+	@Override
+	public void write(List<SinkRecord> records, FnResponse response) {
+		SinkRecord first = records.get(0);
+		RecordHeaders headers = new RecordHeaders();
+		headers.add(ResponseForwarder.HEADER_SOURCE_TOPIC, utf8(first.topic()));
+		headers.add(ResponseForwarder.HEADER_SOURCE_PARTITION, utf8(first.kafkaPartition().toString()));
+		headers.add(ResponseForwarder.HEADER_SOURCE_OFFSET, utf8(Long.toString(first.kafkaOffset())));
+		if (records.size() > 1) {
+			headers.add(ResponseForwarder.HEADER_SOURCE_LAST_OFFSET,
+					utf8(Long.toString(records.get(records.size() - 1).kafkaOffset())));
+		}
+		producer.send(new ProducerRecord<>(topic, null, key(first), response.toByteArray(), headers), (metadata, e) -> {
+			if (e != null) {
+				sendFailure = e;
+			}
+		});
+	}
+
+	@Override
+	public void flush() throws IOException {
+		producer.flush();
+		Exception failure = sendFailure;
+		if (failure != null) {
+			sendFailure = null;
+			throw new IOException("Failed to produce a response to " + topic, failure);
+		}
+	}
+
+	@Override
+	public void close() {
+		producer.close();
+	}
+
+	private static byte[] key(SinkRecord record) {
+		Object key = record.key();
+		if (key == null || key instanceof byte[]) {
+			return (byte[]) key;
+		}
+		return utf8(key.toString());
+	}
+
+	private static byte[] utf8(String value) {
+		return value.getBytes(StandardCharsets.UTF_8);
+	}
+
+}
@@ -0,0 +1,88 @@
+package com.fn.sink.kafka.connect;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of non-negative values in the spirit of HdrHistogram: each
+ * power of two is split into 16 linear buckets, so a recorded value is off by
+ * at most 1/16 of itself, and the buckets are fixed up front. Recording
+ * increments one bucket and never allocates or locks; reading walks the
+ * buckets without stopping writers, so it may miss values recorded
+ * concurrently.
+ *
+ * <p>
+ * Values are kept from creation, not over a sliding window.
+ * </p>
+ */
+class LogLinearHistogram {
+
+	private static final int SUB_BUCKET_BITS = 4;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	// values up to 2^40, about 12 days in microseconds
+	private static final int MAX_BIT = 40;
+	private static final long MAX_VALUE = (1L << MAX_BIT) - 1;
+
+	private final AtomicLongArray counts = new AtomicLongArray(index(MAX_VALUE) + 1);
+	private final LongAdder total = new LongAdder();
+	private final LongAdder sum = new LongAdder();
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+	void record(long value) {
+		long v = Math.min(Math.max(value, 0), MAX_VALUE);
+		counts.incrementAndGet(index(v));
+		total.increment();
+		sum.add(v);
+		max.accumulate(v);
+	}
+
+	long count() {
+		return total.sum();
+	}
+
+	long max() {
+		return max.get();
+	}
+
+	double mean() {
+		long n = total.sum();
+		return n == 0 ? 0 : (double) sum.sum() / n;
+	}
+
+	/**
+	 * @param quantile Between 0 and 1
+	 * @return the highest value of the bucket holding that quantile, or 0 when
+	 * nothing was recorded
+	 */
+	long percentile(double quantile) {
+		long n = 0;
+		for (int i = 0; i < counts.length(); i++) {
+			n += counts.get(i);
+		}
+		if (n == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(quantile * n));
+		long seen = 0;
+		for (int i = 0; i < counts.length(); i++) {
+			seen += counts.get(i);
+			if (seen >= rank) {
+				return Math.min(highestValue(i), max.get());
+			}
+		}
+		return max.get();
+	}
+
+	private static int index(long value) {
+		int shift = Math.max(0, 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS);
+		return shift * SUB_BUCKETS + (int) (value >>> shift);
+	}
+
+	private static long highestValue(int index) {
+		int shift = Math.max(0, index / SUB_BUCKETS - 1);
+		long lowest = (long) (index - shift * SUB_BUCKETS) << shift;
+		return lowest + (1L << shift) - 1;
+	}
+
+}
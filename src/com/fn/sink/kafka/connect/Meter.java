@@ -0,0 +1,62 @@
+package com.fn.sink.kafka.connect;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A count and its one-minute exponentially weighted rate, as in the usual
+ * UNIX load average. Marking adds to a striped counter; the rate is folded in
+ * every 5 seconds by whichever thread gets there first, without locking.
+ */
+class Meter {
+
+	private static final long TICK_NANOS = TimeUnit.SECONDS.toNanos(5);
+	private static final double ALPHA = 1 - Math.exp(-5.0 / 60);
+
+	private final LongAdder count = new LongAdder();
+	private final LongAdder uncounted = new LongAdder();
+	private final AtomicLong lastTick = new AtomicLong(System.nanoTime());
+	private volatile double ratePerNano = -1;
+
+	void mark(long n) {
+		count.add(n);
+		uncounted.add(n);
+		tickIfNecessary();
+	}
+
+	long count() {
+		return count.sum();
+	}
+
+	/**
+	 * @return the rate over about the last minute, per second
+	 */
+	double oneMinuteRate() {
+		tickIfNecessary();
+		double rate = ratePerNano;
+		return rate < 0 ? 0 : rate * TimeUnit.SECONDS.toNanos(1);
+	}
+
+	private void tickIfNecessary() {
+		long last = lastTick.get();
+		long now = System.nanoTime();
+		long elapsed = now - last;
+		if (elapsed < TICK_NANOS) {
+			return;
+		}
+		long ticks = elapsed / TICK_NANOS;
+		if (!lastTick.compareAndSet(last, last + ticks * TICK_NANOS)) {
+			return;
+		}
+		double rate = ratePerNano;
+		double instant = (double) uncounted.sumThenReset() / TICK_NANOS;
+		rate = rate < 0 ? instant : rate + ALPHA * (instant - rate);
+		// ticks without any marks decay the rate
+		for (long i = 1; i < ticks && rate > 0; i++) {
+			rate -= ALPHA * rate;
+		}
+		ratePerNano = rate;
+	}
+
+}
@@ -0,0 +1,152 @@
+package com.fn.sink.kafka.connect;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.connect.errors.ConnectException;
+import org.apache.kafka.connect.sink.SinkRecord;
+
+/**
+ * Invokes the function in parallel across lanes while keeping strict order
+ * within a lane. Every assigned partition gets {@code lanesPerPartition}
+ * lanes; with more than one, records are spread across them by key so that
+ * ordering is kept per key rather than per partition.
+ *
+ * <p>
+ * A lane starts an invocation once the previous one, retries included, has
+ * completed. At most as many invocations as the {@link InFlightLimiter}
+ * allows are queued or running at once across all lanes. Once an invocation of a partition has failed, the
+ * rest of its lanes' invocations are skipped: the partition is about to be
+ * delivered again from the failed offset, and invoking later records first
+ * would break the order.
+ * </p>
+ */
+class OrderedInvocationDispatcher implements InvocationDispatcher {
+
+	private final FnInvoker invoker;
+	private final InvocationListener listener;
+	private final InvocationFailures failures;
+	private final InFlightLimiter inFlight;
+	private final int lanesPerPartition;
+	private final Map<TopicPartition, Lane[]> lanes = new HashMap<>();
+
+	OrderedInvocationDispatcher(FnInvoker invoker, InvocationListener listener, InvocationFailures failures,
+			InFlightLimiter inFlight, int lanesPerPartition) {
+		this.invoker = invoker;
+		this.listener = listener;
+		this.failures = failures;
+		this.inFlight = inFlight;
+		this.lanesPerPartition = lanesPerPartition;
+	}
+
+	@Override
+	public void open(Collection<TopicPartition> partitions) {
+		for (TopicPartition partition : partitions) {
+			lanesFor(partition);
+		}
+	}
+
+	@Override
+	public void dispatch(List<SinkRecord> records, String functionUrl, HttpEntity payload, Header[] headers) {
+		Lane lane = laneFor(records.get(0));
+		inFlight.acquire();
+		lane.submit(() -> {
+			if (failures.hasFailed(records.get(0))) {
+				return CompletableFuture.completedFuture(null);
+			}
+			return invoker.invoke(functionUrl, payload, headers).handle((response, error) -> {
+				if (error == null) {
+					listener.onSuccess(records, response);
+				} else {
+					listener.onFailure(records, RetryingInvoker.unwrap(error));
+				}
+				return null;
+			});
+		}).whenComplete((ignored, error) -> inFlight.release());
+	}
+
+	/**
+	 * Batches never span lanes, so a batch keeps the order of its lane.
+	 */
+	@Override
+	public Object batchGroup(SinkRecord record) {
+		return laneFor(record);
+	}
+
+	@Override
+	public void awaitInFlight() {
+		inFlight.awaitIdle();
+	}
+
+	/**
+	 * Drain the lanes of revoked partitions and drop them.
+	 */
+	@Override
+	public void close(Collection<TopicPartition> partitions) {
+		List<Lane> revoked = new ArrayList<>();
+		for (TopicPartition partition : partitions) {
+			Lane[] partitionLanes = lanes.remove(partition);
+			if (partitionLanes != null) {
+				for (Lane lane : partitionLanes) {
+					revoked.add(lane);
+				}
+			}
+		}
+		for (Lane lane : revoked) {
+			lane.await();
+		}
+	}
+
+	private Lane laneFor(SinkRecord record) {
+		Lane[] partitionLanes = lanesFor(new TopicPartition(record.topic(), record.kafkaPartition()));
+		if (partitionLanes.length == 1 || record.key() == null) {
+			return partitionLanes[0];
+		}
+		return partitionLanes[Math.floorMod(record.key().hashCode(), partitionLanes.length)];
+	}
+
+	private Lane[] lanesFor(TopicPartition partition) {
+		return lanes.computeIfAbsent(partition, tp -> {
+			Lane[] partitionLanes = new Lane[lanesPerPartition];
+			for (int i = 0; i < partitionLanes.length; i++) {
+				partitionLanes[i] = new Lane();
+			}
+			return partitionLanes;
+		});
+	}
+
+	/**
+	 * A chain of invocations. Only touched from the task thread; {@code tail}
+	 * completes once everything submitted so far has completed.
+	 */
+	private static class Lane {
+
+		private CompletableFuture<Void> tail = CompletableFuture.completedFuture(null);
+
+		CompletableFuture<Void> submit(Supplier<CompletableFuture<Void>> invocation) {
+			tail = tail.handle((ignored, error) -> null).thenCompose(ignored -> invocation.get());
+			return tail;
+		}
+
+		void await() {
+			try {
+				tail.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new ConnectException("Interrupted while draining partition", e);
+			} catch (ExecutionException e) {
+				// failures are reported to the listener by the invocation itself
+			}
+		}
+	}
+
+}
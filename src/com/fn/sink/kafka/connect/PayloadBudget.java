@@ -0,0 +1,168 @@
+package com.fn.sink.kafka.connect;
+
+import com.fn.sink.kafka.connect.http.FnResponse;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.connect.sink.SinkRecord;
+
+/**
+ * Caps the payload bytes a task holds on the heap: invocations in flight,
+ * retries included, and those waiting for rate limit tokens. Invocations never
+ * span partitions, so bytes are accounted per partition.
+ *
+ * <p>
+ * When the budget is exceeded, the heaviest partitions are paused until the
+ * others hold less than the low-water mark; they are all resumed once usage
+ * drains below it. Between the two marks the paused partitions stay paused,
+ * so that a partition does not flap around the limit.
+ * </p>
+ */
+class PayloadBudget implements InvocationListener, PayloadBudgetMBean {
+
+	private final long maxBytes;
+	private final long lowWaterBytes;
+	// keyed by the records of the invocation, which are passed back to the listener
+	private final Map<List<SinkRecord>, Long> held = new IdentityHashMap<>();
+	private final Map<TopicPartition, Long> inFlight = new HashMap<>();
+	private final Set<TopicPartition> paused = new HashSet<>();
+	private long inFlightBytes;
+	private volatile long usedBytes;
+	private volatile int pausedCount;
+
+	PayloadBudget(long maxBytes, long lowWaterBytes) {
+		this.maxBytes = maxBytes;
+		this.lowWaterBytes = lowWaterBytes;
+	}
+
+	/**
+	 * Account for an invocation about to be dispatched, until the listener is
+	 * notified of its outcome.
+	 */
+	synchronized void hold(List<SinkRecord> records, long bytes) {
+		long size = Math.max(0, bytes);
+		if (held.put(records, size) == null) {
+			inFlight.merge(partition(records.get(0)), size, Long::sum);
+			inFlightBytes += size;
+		}
+	}
+
+	@Override
+	public void onSuccess(List<SinkRecord> records, FnResponse response) {
+		release(records);
+	}
+
+	@Override
+	public void onFailure(List<SinkRecord> records, Throwable error) {
+		release(records);
+	}
+
+	private synchronized void release(List<SinkRecord> records) {
+		Long size = held.remove(records);
+		if (size != null) {
+			inFlight.computeIfPresent(partition(records.get(0)), (tp, bytes) -> bytes - size > 0 ? bytes - size : null);
+			inFlightBytes -= size;
+		}
+	}
+
+	/**
+	 * Forget every invocation still held. Called once nothing is in flight,
+	 * so that invocations skipped without notifying the listener, e.g. those
+	 * of a failed partition, are not held forever.
+	 */
+	synchronized void settle() {
+		held.clear();
+		inFlight.clear();
+		inFlightBytes = 0;
+	}
+
+	/**
+	 * Stop accounting for revoked partitions.
+	 */
+	synchronized void forget(Collection<TopicPartition> partitions) {
+		for (Iterator<Map.Entry<List<SinkRecord>, Long>> it = held.entrySet().iterator(); it.hasNext();) {
+			Map.Entry<List<SinkRecord>, Long> entry = it.next();
+			if (partitions.contains(partition(entry.getKey().get(0)))) {
+				inFlightBytes -= entry.getValue();
+				it.remove();
+			}
+		}
+		inFlight.keySet().removeAll(partitions);
+		paused.removeAll(partitions);
+		pausedCount = paused.size();
+	}
+
+	/**
+	 * @param waiting Payload bytes per partition waiting to be dispatched
+	 * @return the partitions to keep paused
+	 */
+	synchronized Set<TopicPartition> update(Map<TopicPartition, Long> waiting) {
+		Map<TopicPartition, Long> usage = new HashMap<>(inFlight);
+		waiting.forEach((tp, bytes) -> usage.merge(tp, bytes, Long::sum));
+		long total = 0;
+		for (long bytes : usage.values()) {
+			total += bytes;
+		}
+		usedBytes = total;
+		if (total > maxBytes) {
+			long others = total;
+			for (TopicPartition tp : paused) {
+				others -= usage.getOrDefault(tp, 0L);
+			}
+			List<Map.Entry<TopicPartition, Long>> heaviest = new ArrayList<>(usage.entrySet());
+			heaviest.sort(Collections.reverseOrder(Map.Entry.comparingByValue()));
+			for (Map.Entry<TopicPartition, Long> entry : heaviest) {
+				if (others <= lowWaterBytes) {
+					break;
+				}
+				if (paused.add(entry.getKey())) {
+					others -= entry.getValue();
+				}
+			}
+		} else if (total <= lowWaterBytes) {
+			paused.clear();
+		}
+		pausedCount = paused.size();
+		return new HashSet<>(paused);
+	}
+
+	private static TopicPartition partition(SinkRecord record) {
+		return new TopicPartition(record.topic(), record.kafkaPartition());
+	}
+
+	@Override
+	public long getMaxBytes() {
+		return maxBytes;
+	}
+
+	@Override
+	public long getLowWaterBytes() {
+		return lowWaterBytes;
+	}
+
+	@Override
+	public synchronized long getInFlightBytes() {
+		return inFlightBytes;
+	}
+
+	@Override
+	public long getUsedBytes() {
+		return usedBytes;
+	}
+
+	@Override
+	public int getPausedPartitions() {
+		return pausedCount;
+	}
+
+}
@@ -0,0 +1,27 @@
+package com.fn.sink.kafka.connect;
+
+/**
+ * JMX view of a {@link PayloadBudget}.
+ */
+public interface PayloadBudgetMBean {
+
+	long getMaxBytes();
+
+	long getLowWaterBytes();
+
+	/**
+	 * @return the payload bytes of invocations dispatched and not completed
+	 */
+	long getInFlightBytes();
+
+	/**
+	 * @return the payload bytes in flight or waiting, as of the last put
+	 */
+	long getUsedBytes();
+
+	/**
+	 * @return the number of partitions paused to stay within the budget
+	 */
+	int getPausedPartitions();
+
+}
@@ -0,0 +1,44 @@
+package com.fn.sink.kafka.connect;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.kafka.connect.sink.SinkRecord;
+
+/**
+ * Turns a record value into the bytes sent to the function, whatever
+ * converter produced it:
+ *
+ * <ul>
+ * <li>{@code byte[]} and {@code ByteBuffer} (ByteArrayConverter) are sent
+ * as-is, without copying</li>
+ * <li>{@code String} (StringConverter) is encoded to UTF-8</li>
+ * <li>anything else, typically a {@code Struct} or {@code Map}
+ * (JsonConverter, AvroConverter), is written as JSON</li>
+ * </ul>
+ *
+ * <p>
+ * Not thread safe; each task owns its own serializer.
+ * </p>
+ */
+class PayloadSerializer {
+
+	private final JsonPayloadWriter jsonWriter = new JsonPayloadWriter();
+
+	/**
+	 * @return the payload of a record with a non-null value. The returned
+	 * buffer may share the record's own array and must not be modified.
+	 */
+	ByteBuffer serialize(SinkRecord record) {
+		Object value = record.value();
+		if (value instanceof byte[]) {
+			return ByteBuffer.wrap((byte[]) value);
+		} else if (value instanceof ByteBuffer) {
+			return ((ByteBuffer) value).duplicate();
+		} else if (value instanceof String) {
+			return ByteBuffer.wrap(((String) value).getBytes(StandardCharsets.UTF_8));
+		}
+		return ByteBuffer.wrap(jsonWriter.write(value, record.valueSchema()));
+	}
+
+}
@@ -0,0 +1,84 @@
+package com.fn.sink.kafka.connect;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A fixed-size set of 64 bit keys that forgets each key once its time to live
+ * has passed. Keys and expiry times are kept in two primitive arrays sized
+ * once, about 12 bytes per slot, so memory does not grow with traffic.
+ *
+ * <p>
+ * Open addressing with a short probe sequence: when every slot a key may go
+ * to is taken by a live key, the one closest to expiring is evicted. The set
+ * is therefore lossy under pressure, forgetting the oldest keys first, but
+ * never reports a key it was not given. Expiry has one second resolution.
+ * </p>
+ */
+class RecentKeySet {
+
+	private static final int PROBES = 8;
+
+	private final long[] keys;
+	private final int[] expiries;
+	private final int mask;
+	private final long baseMs;
+	private final int ttlSeconds;
+
+	/**
+	 * @param capacity Number of keys kept, rounded up to a power of two, at
+	 * most 2^30
+	 */
+	RecentKeySet(int capacity, long ttlMs, long nowMs) {
+		int size = Integer.highestOneBit(Math.max(PROBES, capacity - 1)) << 1;
+		this.keys = new long[size];
+		this.expiries = new int[size];
+		this.mask = size - 1;
+		this.baseMs = nowMs;
+		this.ttlSeconds = (int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(ttlMs));
+	}
+
+	synchronized boolean contains(long key, long nowMs) {
+		int now = seconds(nowMs);
+		int start = slot(key);
+		for (int i = 0; i < PROBES; i++) {
+			int slot = (start + i) & mask;
+			if (keys[slot] == key && expiries[slot] > now) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Add a key, or extend its time to live if already present.
+	 */
+	synchronized void add(long key, long nowMs) {
+		int now = seconds(nowMs);
+		int start = slot(key);
+		int target = -1;
+		for (int i = 0; i < PROBES; i++) {
+			int slot = (start + i) & mask;
+			if (keys[slot] == key) {
+				target = slot;
+				break;
+			}
+			if (target < 0 || expiries[target] > expiries[slot]) {
+				// a free or expired slot, else the one closest to expiring
+				target = slot;
+			}
+		}
+		keys[target] = key;
+		expiries[target] = now + ttlSeconds;
+	}
+
+	private int seconds(long nowMs) {
+		// + 1 so that a free slot, expiring at 0, never looks live
+		return (int) ((nowMs - baseMs) / 1000) + 1;
+	}
+
+	private int slot(long key) {
+		long mixed = key * 0x9E3779B97F4A7C15L;
+		return (int) (mixed ^ (mixed >>> 32)) & mask;
+	}
+
+}
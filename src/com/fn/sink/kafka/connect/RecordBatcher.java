@@ -0,0 +1,122 @@
+package com.fn.sink.kafka.connect;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.apache.http.HttpEntity;
+import org.apache.kafka.connect.sink.SinkRecord;
+
+/**
+ * Accumulates records into batches, one open batch per group, and hands a
+ * batch over once it reaches {@code maxRecords}, would exceed
+ * {@code maxBytes}, or has been open for {@code lingerMs}. Groups are chosen
+ * by the {@link InvocationDispatcher} so that batching never mixes records
+ * whose relative order it has to preserve. A record routed to another
+ * function than its group's open batch hands that batch over first.
+ *
+ * <p>
+ * Only used from the task thread.
+ * </p>
+ */
+class RecordBatcher {
+
+	private final int maxRecords;
+	private final int maxBytes;
+	private final long lingerMs;
+	private final BatchFormat format;
+	private final Map<Object, Batch> open = new LinkedHashMap<>();
+
+	RecordBatcher(int maxRecords, int maxBytes, long lingerMs, BatchFormat format) {
+		this.maxRecords = maxRecords;
+		this.maxBytes = maxBytes;
+		this.lingerMs = lingerMs;
+		this.format = format;
+	}
+
+	void add(Object group, String functionUrl, SinkRecord record, ByteBuffer value, long now, Consumer<Batch> ready) {
+		Batch batch = open.get(group);
+		if (batch != null && (!batch.functionUrl.equals(functionUrl)
+				|| batch.size() + format.framingBytes() + value.remaining() > maxBytes)) {
+			open.remove(group);
+			ready.accept(batch);
+			batch = null;
+		}
+		if (batch == null) {
+			batch = new Batch(functionUrl, now);
+			open.put(group, batch);
+		}
+		batch.add(record, value);
+		if (batch.records.size() >= maxRecords || batch.size() >= maxBytes) {
+			open.remove(group);
+			ready.accept(batch);
+		}
+	}
+
+	/**
+	 * Hand over every batch that has been open for at least {@code lingerMs}.
+	 */
+	void expire(long now, Consumer<Batch> ready) {
+		Iterator<Batch> batches = open.values().iterator();
+		while (batches.hasNext()) {
+			Batch batch = batches.next();
+			if (now - batch.createdMs >= lingerMs) {
+				batches.remove();
+				ready.accept(batch);
+			}
+		}
+	}
+
+	/**
+	 * Hand over every open batch.
+	 */
+	void drain(Consumer<Batch> ready) {
+		List<Batch> batches = new ArrayList<>(open.values());
+		open.clear();
+		batches.forEach(ready);
+	}
+
+	class Batch {
+
+		private final String functionUrl;
+		private final long createdMs;
+		private final List<SinkRecord> records = new ArrayList<>();
+		private final List<ByteBuffer> values = new ArrayList<>();
+		private int valueBytes;
+
+		private Batch(String functionUrl, long createdMs) {
+			this.functionUrl = functionUrl;
+			this.createdMs = createdMs;
+		}
+
+		private void add(SinkRecord record, ByteBuffer value) {
+			records.add(record);
+			values.add(value);
+			valueBytes += value.remaining();
+		}
+
+		/**
+		 * @return size of the encoded body
+		 */
+		int size() {
+			return format.envelopeBytes() + format.framingBytes() * values.size() + valueBytes;
+		}
+
+		List<SinkRecord> records() {
+			return records;
+		}
+
+		String functionUrl() {
+			return functionUrl;
+		}
+
+		HttpEntity toEntity() {
+			return format.encode(values, valueBytes);
+		}
+	}
+
+}
@@ -0,0 +1,118 @@
+package com.fn.sink.kafka.connect;
+
+import com.fn.sink.kafka.connect.http.FnResponse;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.apache.http.Header;
+import org.apache.http.message.BasicHeader;
+import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.connect.sink.SinkRecord;
+
+/**
+ * Skips records that were invoked successfully not long ago, as happens when
+ * the framework delivers them again after a rebalance or a failure, and
+ * gives every invocation a stable idempotency key so that the function can
+ * recognise the duplicates that still get through.
+ *
+ * <p>
+ * Records are keyed on a 64 bit hash of their topic and either their
+ * partition and offset, their key or one of their headers, see
+ * {@link FnInvocationConfig#DEDUP_KEY_CONFIG}. Records without that key or
+ * header are keyed on their offset. Keys are remembered in a
+ * {@link RecentKeySet} once their invocation succeeded.
+ * </p>
+ */
+class RecordDeduplicator implements InvocationListener {
+
+	static final String KEY_NONE = "none";
+	static final String KEY_OFFSET = "offset";
+	static final String KEY_RECORD_KEY = "key";
+	static final String KEY_HEADER_PREFIX = "header.";
+
+	private static final HashFunction HASH = Hashing.murmur3_128();
+
+	private final String headerName;
+	private final boolean byRecordKey;
+	private final String idempotencyHeader;
+	private final RecentKeySet seen;
+
+	/**
+	 * @param key One of {@code offset}, {@code key} or {@code header.<name>}
+	 * @param idempotencyHeader Name of the request header carrying the
+	 * invocation's idempotency key
+	 */
+	RecordDeduplicator(String key, String idempotencyHeader, int capacity, long ttlMs) {
+		this.byRecordKey = KEY_RECORD_KEY.equals(key);
+		this.headerName = key.startsWith(KEY_HEADER_PREFIX) ? key.substring(KEY_HEADER_PREFIX.length()) : null;
+		if (!byRecordKey && headerName == null && !KEY_OFFSET.equals(key)) {
+			throw new ConfigException(FnInvocationConfig.DEDUP_KEY_CONFIG, key, "expected none, offset, key or header.<name>");
+		}
+		this.idempotencyHeader = idempotencyHeader;
+		this.seen = new RecentKeySet(capacity, ttlMs, System.currentTimeMillis());
+	}
+
+	/**
+	 * @return true if the record was invoked successfully within the time to
+	 * live
+	 */
+	boolean isDuplicate(SinkRecord record) {
+		return seen.contains(keyOf(record), System.currentTimeMillis());
+	}
+
+	/**
+	 * @return the idempotency header of an invocation of {@code records}: the
+	 * record's own key, or a hash of the keys of a batch
+	 */
+	Header idempotencyHeader(List<SinkRecord> records) {
+		long key;
+		if (records.size() == 1) {
+			key = keyOf(records.get(0));
+		} else {
+			Hasher hasher = HASH.newHasher();
+			records.forEach(record -> hasher.putLong(keyOf(record)));
+			key = hasher.hash().asLong();
+		}
+		return new BasicHeader(idempotencyHeader, String.format("%016x", key));
+	}
+
+	@Override
+	public void onSuccess(List<SinkRecord> records, FnResponse response) {
+		long now = System.currentTimeMillis();
+		for (SinkRecord record : records) {
+			seen.add(keyOf(record), now);
+		}
+	}
+
+	@Override
+	public void onFailure(List<SinkRecord> records, Throwable error) {
+		// not invoked, must not be skipped when delivered again
+	}
+
+	private long keyOf(SinkRecord record) {
+		Hasher hasher = HASH.newHasher().putString(record.topic(), StandardCharsets.UTF_8);
+		Object key = null;
+		if (byRecordKey) {
+			key = record.key();
+		} else if (headerName != null) {
+			org.apache.kafka.connect.header.Header header = record.headers().lastWithName(headerName);
+			key = header == null ? null : header.value();
+		}
+		if (key == null) {
+			return hasher.putInt(record.kafkaPartition()).putLong(record.kafkaOffset()).hash().asLong();
+		}
+		hasher.putByte((byte) 0);
+		if (key instanceof byte[]) {
+			hasher.putBytes((byte[]) key);
+		} else {
+			hasher.putString(key.toString(), StandardCharsets.UTF_8);
+		}
+		return hasher.hash().asLong();
+	}
+
+}
@@ -0,0 +1,272 @@
+package com.fn.sink.kafka.connect;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.kafka.common.config.ConfigException;
+
+/**
+ * Decides which records are worth invoking the function with, from the
+ * conditions of {@link FnInvocationConfig#FILTER_CONDITIONS_CONFIG} on fields
+ * of their JSON payload. A record is invoked only if it meets every
+ * condition; a missing field fails its condition.
+ *
+ * <p>
+ * Conditions are separated by {@code &}, each is
+ * {@code <json.path> <operator> <operand>}:
+ * </p>
+ *
+ * <ul>
+ * <li>{@code =} and {@code !=} compare with a string, or numerically with a
+ * number</li>
+ * <li>{@code <}, {@code <=}, {@code >} and {@code >=} compare numbers</li>
+ * <li>{@code in (a, b, c)} and {@code not in (a, b, c)} test set
+ * membership</li>
+ * </ul>
+ *
+ * <p>
+ * All fields are read in a single pass over the raw payload bytes by a
+ * {@link JsonFieldExtractor}, which stops once it has them all; strings are
+ * compared without decoding them. Only used from the task thread.
+ * </p>
+ */
+class RecordFilter {
+
+	private static final Pattern CONDITION_SEPARATOR = Pattern.compile("\\s*&\\s*");
+	private static final Pattern CONDITION = Pattern.compile("([^\\s!=<>]+)\\s*(!=|<=|>=|=|<|>|not\\s+in\\b|in\\b)\\s*(.*)");
+	private static final Pattern SET = Pattern.compile("\\((.*)\\)");
+	// above this size set membership hashes the decoded value, or the number, instead of comparing bytes
+	private static final int LINEAR_SET_SIZE = 8;
+
+	private final List<Condition> conditions = new ArrayList<>();
+	private final JsonFieldExtractor extractor;
+
+	/**
+	 * @throws ConfigException if a condition does not parse
+	 */
+	RecordFilter(String conditions) {
+		List<String> paths = new ArrayList<>();
+		for (String text : CONDITION_SEPARATOR.split(conditions.trim())) {
+			if (text.isEmpty()) {
+				continue;
+			}
+			Matcher matcher = CONDITION.matcher(text);
+			if (!matcher.matches()) {
+				throw invalid(text, "expected '<json.path> <operator> <operand>'");
+			}
+			String path = matcher.group(1);
+			int pathIndex = paths.indexOf(path);
+			if (pathIndex < 0) {
+				pathIndex = paths.size();
+				paths.add(path);
+			}
+			this.conditions.add(new Condition(pathIndex, parse(matcher.group(2).replaceAll("\\s+", " "), matcher.group(3).trim(), text)));
+		}
+		this.extractor = new JsonFieldExtractor(paths);
+	}
+
+	boolean isEmpty() {
+		return conditions.isEmpty();
+	}
+
+	/**
+	 * @param value A record's serialized payload
+	 * @return true if the record meets every condition
+	 */
+	boolean accept(ByteBuffer value) {
+		int[] starts = extractor.extract(value);
+		for (Condition condition : conditions) {
+			int start = starts[condition.pathIndex];
+			if (start == JsonFieldScanner.MISSING || !condition.test.test(value, start)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static ValueTest parse(String operator, String operand, String condition) {
+		switch (operator) {
+		case "=":
+			return equalTo(operand);
+		case "!=": {
+			ValueTest equal = equalTo(operand);
+			return (json, start) -> !equal.test(json, start);
+		}
+		case "in":
+			return in(setOf(operand, condition));
+		case "not in": {
+			ValueTest in = in(setOf(operand, condition));
+			return (json, start) -> !in.test(json, start);
+		}
+		default:
+			double bound = number(operand);
+			if (Double.isNaN(bound)) {
+				throw invalid(condition, "'" + operator + "' needs a number");
+			}
+			switch (operator) {
+			case "<":
+				return (json, start) -> number(json, start) < bound;
+			case "<=":
+				return (json, start) -> number(json, start) <= bound;
+			case ">":
+				return (json, start) -> number(json, start) > bound;
+			default:
+				return (json, start) -> number(json, start) >= bound;
+			}
+		}
+	}
+
+	/**
+	 * Numbers are compared by value, so that {@code 3} equals {@code 3.0};
+	 * anything else byte for byte.
+	 */
+	private static ValueTest equalTo(String operand) {
+		byte[] literal = unquote(operand).getBytes(StandardCharsets.UTF_8);
+		double number = number(operand);
+		if (Double.isNaN(number)) {
+			return (json, start) -> JsonFieldScanner.valueEquals(json, start, literal);
+		}
+		return (json, start) -> json.get(start) == '"'
+				? JsonFieldScanner.valueEquals(json, start, literal)
+				: number(json, start) == number;
+	}
+
+	private static ValueTest in(List<String> members) {
+		if (members.size() <= LINEAR_SET_SIZE) {
+			List<ValueTest> tests = new ArrayList<>();
+			members.forEach(member -> tests.add(equalTo(member)));
+			return (json, start) -> {
+				for (ValueTest test : tests) {
+					if (test.test(json, start)) {
+						return true;
+					}
+				}
+				return false;
+			};
+		}
+		// as equalTo: strings by content, numbers by value
+		Set<String> strings = new HashSet<>();
+		Set<Double> numbers = new HashSet<>();
+		for (String member : members) {
+			strings.add(unquote(member));
+			double number = number(member);
+			if (!Double.isNaN(number)) {
+				numbers.add(normalized(number));
+			}
+		}
+		return (json, start) -> {
+			if (json.get(start) != '"' && !numbers.isEmpty()) {
+				double number = number(json, start);
+				if (!Double.isNaN(number)) {
+					return numbers.contains(normalized(number));
+				}
+			}
+			return strings.contains(JsonFieldScanner.text(json, start));
+		};
+	}
+
+	/**
+	 * @return the number boxed so that equal values are equal keys; -0.0
+	 * and 0.0 compare equal but box differently
+	 */
+	private static Double normalized(double number) {
+		return number + 0.0;
+	}
+
+	private static List<String> setOf(String operand, String condition) {
+		Matcher matcher = SET.matcher(operand);
+		if (!matcher.matches()) {
+			throw invalid(condition, "expected '(a, b, ...)'");
+		}
+		List<String> members = new ArrayList<>();
+		for (String member : matcher.group(1).split(",")) {
+			if (!member.trim().isEmpty()) {
+				members.add(member.trim());
+			}
+		}
+		return members;
+	}
+
+	private static String unquote(String operand) {
+		if (operand.length() >= 2 && operand.startsWith("\"") && operand.endsWith("\"")) {
+			return operand.substring(1, operand.length() - 1);
+		}
+		return operand;
+	}
+
+	private static double number(String operand) {
+		if (operand == null) {
+			return Double.NaN;
+		}
+		try {
+			return Double.parseDouble(operand);
+		} catch (NumberFormatException e) {
+			return Double.NaN;
+		}
+	}
+
+	/**
+	 * @return the number at {@code start}, or NaN if the value is not a
+	 * number. Integers are read straight from the bytes.
+	 */
+	private static double number(ByteBuffer json, int start) {
+		int limit = json.limit();
+		int i = start;
+		boolean negative = i < limit && json.get(i) == '-';
+		if (negative) {
+			i++;
+		}
+		long value = 0;
+		int digits = 0;
+		while (i < limit && digits < 18) {
+			byte c = json.get(i);
+			if (c < '0' || c > '9') {
+				break;
+			}
+			value = value * 10 + (c - '0');
+			digits++;
+			i++;
+		}
+		if (digits > 0 && (i == limit || isDelimiter(json.get(i)))) {
+			return negative ? -value : value;
+		}
+		byte first = json.get(start);
+		if (first != '-' && (first < '0' || first > '9')) {
+			return Double.NaN;
+		}
+		// fractions, exponents and long integers
+		return number(JsonFieldScanner.text(json, start));
+	}
+
+	private static boolean isDelimiter(byte c) {
+		return c == ',' || c == '}' || c == ']' || c == ' ' || c == '\n' || c == '\r' || c == '\t';
+	}
+
+	private static ConfigException invalid(String condition, String reason) {
+		return new ConfigException(FnInvocationConfig.FILTER_CONDITIONS_CONFIG, condition, reason);
+	}
+
+	@FunctionalInterface
+	private interface ValueTest {
+		boolean test(ByteBuffer json, int start);
+	}
+
+	private static final class Condition {
+
+		private final int pathIndex;
+		private final ValueTest test;
+
+		private Condition(int pathIndex, ValueTest test) {
+			this.pathIndex = pathIndex;
+			this.test = test;
+		}
+
+	}
+
+}
@@ -0,0 +1,252 @@
+package com.fn.sink.kafka.connect;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.connect.header.Header;
+import org.apache.kafka.connect.sink.SinkRecord;
+
+/**
+ * Chooses the function each record is sent to, or drops it, from the rules
+ * of {@link FnInvocationConfig#ROUTING_RULES_CONFIG}. The first rule whose
+ * conditions all match wins; records no rule matches go to the default
+ * function URL.
+ *
+ * <p>
+ * A rule is {@code <condition> [& <condition>...] -> <function URL | drop>},
+ * rules are separated by {@code ;}. A condition is {@code *}, or a subject
+ * compared with {@code =} (equals) or {@code ~} (regular expression, whole
+ * value):
+ * </p>
+ *
+ * <ul>
+ * <li>{@code topic}</li>
+ * <li>{@code key}, the record key as a string</li>
+ * <li>{@code header.<name>}, the last header with that name as a string</li>
+ * <li>{@code field.<path>}, a field of a JSON payload, see
+ * {@link JsonFieldScanner}</li>
+ * </ul>
+ *
+ * <p>
+ * Rules are compiled once. Topic conditions are resolved the first time a
+ * topic is seen, so each record is only checked against the rules that can
+ * apply to its topic, and JSON fields are only looked up when a rule gets
+ * that far. Only used from the task thread.
+ * </p>
+ */
+class RecordRouter {
+
+	private static final Pattern RULE_SEPARATOR = Pattern.compile(";");
+	private static final Pattern CONDITION_SEPARATOR = Pattern.compile("\\s+&\\s+");
+	private static final String DROP = "drop";
+
+	private final List<Rule> rules = new ArrayList<>();
+	private final String defaultUrl;
+	private final Map<String, Rule[]> rulesByTopic = new HashMap<>();
+
+	/**
+	 * @throws ConfigException if a rule does not parse
+	 */
+	RecordRouter(String rules, String defaultUrl) {
+		this.defaultUrl = defaultUrl;
+		for (String text : RULE_SEPARATOR.split(rules)) {
+			if (!text.trim().isEmpty()) {
+				this.rules.add(parse(text.trim()));
+			}
+		}
+	}
+
+	/**
+	 * @param value The record's serialized payload
+	 * @return the URL of the function to invoke, or null to drop the record
+	 */
+	String route(SinkRecord record, ByteBuffer value) {
+		Rule[] candidates = rulesByTopic.get(record.topic());
+		if (candidates == null) {
+			candidates = rules.stream().filter(rule -> rule.appliesTo(record.topic())).toArray(Rule[]::new);
+			rulesByTopic.put(record.topic(), candidates);
+		}
+		for (Rule rule : candidates) {
+			if (rule.matches(record, value)) {
+				return rule.functionUrl;
+			}
+		}
+		return defaultUrl;
+	}
+
+	/**
+	 * @return the default function URL followed by those of the rules, once
+	 * each
+	 */
+	Set<String> functionUrls() {
+		Set<String> urls = new LinkedHashSet<>();
+		urls.add(defaultUrl);
+		for (Rule rule : rules) {
+			if (rule.functionUrl != null) {
+				urls.add(rule.functionUrl);
+			}
+		}
+		return urls;
+	}
+
+	private static Rule parse(String text) {
+		int arrow = text.lastIndexOf("->");
+		if (arrow < 0) {
+			throw invalid(text, "expected '<condition> -> <function URL | drop>'");
+		}
+		String target = text.substring(arrow + 2).trim();
+		if (target.isEmpty()) {
+			throw invalid(text, "missing function URL");
+		}
+		Rule rule = new Rule(DROP.equals(target) ? null : target);
+		String conditions = text.substring(0, arrow).trim();
+		if (conditions.equals("*")) {
+			return rule;
+		}
+		for (String condition : CONDITION_SEPARATOR.split(conditions)) {
+			rule.add(condition.trim(), text);
+		}
+		return rule;
+	}
+
+	private static ConfigException invalid(String rule, String reason) {
+		return new ConfigException(FnInvocationConfig.ROUTING_RULES_CONFIG, rule, reason);
+	}
+
+	@FunctionalInterface
+	private interface Condition {
+		boolean matches(SinkRecord record, ByteBuffer value);
+	}
+
+	/**
+	 * Compares one string with either a literal or a precompiled regular
+	 * expression, reusing its matcher.
+	 */
+	private static final class Operand {
+
+		private final String literal;
+		private final Matcher matcher;
+
+		private Operand(char operator, String operand, String rule) {
+			if (operator == '=') {
+				literal = operand;
+				matcher = null;
+			} else {
+				literal = null;
+				try {
+					matcher = Pattern.compile(operand).matcher("");
+				} catch (PatternSyntaxException e) {
+					throw invalid(rule, e.getDescription() + " in '" + operand + "'");
+				}
+			}
+		}
+
+		private boolean matches(String value) {
+			if (value == null) {
+				return false;
+			}
+			return literal != null ? literal.equals(value) : matcher.reset(value).matches();
+		}
+
+	}
+
+	private static final class Rule {
+
+		private final String functionUrl;
+		private final List<Operand> topics = new ArrayList<>();
+		private final List<Condition> conditions = new ArrayList<>();
+
+		private Rule(String functionUrl) {
+			this.functionUrl = functionUrl;
+		}
+
+		private void add(String condition, String rule) {
+			int operatorIndex = indexOfOperator(condition);
+			if (operatorIndex <= 0) {
+				throw invalid(rule, "expected '<subject> = <value>' or '<subject> ~ <regex>' in '" + condition + "'");
+			}
+			String subject = condition.substring(0, operatorIndex).trim();
+			Operand operand = new Operand(condition.charAt(operatorIndex), condition.substring(operatorIndex + 1).trim(), rule);
+			if (subject.equals("topic")) {
+				topics.add(operand);
+			} else if (subject.equals("key")) {
+				conditions.add((record, value) -> operand.matches(asString(record.key())));
+			} else if (subject.startsWith("header.")) {
+				String name = subject.substring("header.".length());
+				conditions.add((record, value) -> {
+					Header header = record.headers().lastWithName(name);
+					return header != null && operand.matches(asString(header.value()));
+				});
+			} else if (subject.startsWith("field.")) {
+				conditions.add(fieldCondition(new JsonFieldScanner(subject.substring("field.".length())), operand));
+			} else {
+				throw invalid(rule, "unknown subject '" + subject + "', expected topic, key, header.<name> or field.<path>");
+			}
+		}
+
+		private static Condition fieldCondition(JsonFieldScanner scanner, Operand operand) {
+			if (operand.literal != null) {
+				// compared in place, without decoding the value
+				byte[] literal = operand.literal.getBytes(StandardCharsets.UTF_8);
+				return (record, value) -> {
+					int start = scanner.find(value);
+					return start != JsonFieldScanner.MISSING && JsonFieldScanner.valueEquals(value, start, literal);
+				};
+			}
+			return (record, value) -> {
+				int start = scanner.find(value);
+				return start != JsonFieldScanner.MISSING && operand.matches(JsonFieldScanner.text(value, start));
+			};
+		}
+
+		private static int indexOfOperator(String condition) {
+			for (int i = 0; i < condition.length(); i++) {
+				char c = condition.charAt(i);
+				if (c == '=' || c == '~') {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		private boolean appliesTo(String topic) {
+			for (Operand operand : topics) {
+				if (!operand.matches(topic)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private boolean matches(SinkRecord record, ByteBuffer value) {
+			for (Condition condition : conditions) {
+				if (!condition.matches(record, value)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+	}
+
+	private static String asString(Object value) {
+		if (value == null) {
+			return null;
+		}
+		if (value instanceof byte[]) {
+			return new String((byte[]) value, StandardCharsets.UTF_8);
+		}
+		return value.toString();
+	}
+
+}
@@ -0,0 +1,83 @@
+package com.fn.sink.kafka.connect;
+
+import com.fn.sink.kafka.connect.http.FnResponse;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.kafka.connect.errors.ConnectException;
+import org.apache.kafka.connect.sink.SinkRecord;
+
+/**
+ * Forwards the body of successful responses to a {@link ResponseSink},
+ * identified by the records they answer: the source topic, partition and
+ * offset, plus the last offset for a batch, as {@code fn.source.*} headers,
+ * and the key of the first record.
+ *
+ * <p>
+ * Empty bodies are not forwarded. Neither are bodies larger than
+ * response_max_bytes, which were only read in part; they are logged instead.
+ * </p>
+ */
+class ResponseForwarder implements InvocationListener, AutoCloseable {
+
+	static final String HEADER_SOURCE_TOPIC = "fn.source.topic";
+	static final String HEADER_SOURCE_PARTITION = "fn.source.partition";
+	static final String HEADER_SOURCE_OFFSET = "fn.source.offset";
+	static final String HEADER_SOURCE_LAST_OFFSET = "fn.source.last.offset";
+
+	private static final Logger LOGGER = Logger.getLogger(ResponseForwarder.class.getName());
+
+	private final ResponseSink sink;
+
+	ResponseForwarder(ResponseSink sink) {
+		this.sink = sink;
+	}
+
+	@Override
+	public void onSuccess(List<SinkRecord> records, FnResponse response) {
+		if (response.getLength() == 0) {
+			return;
+		}
+		SinkRecord first = records.get(0);
+		if (response.isTruncated()) {
+			LOGGER.warning("Not forwarding the " + response.getLength() + " byte response for " + first.topic() + "-"
+					+ first.kafkaPartition() + " at offset " + first.kafkaOffset() + ", larger than the response size cap");
+			return;
+		}
+		try {
+			sink.write(records, response);
+		} catch (IOException e) {
+			LOGGER.log(Level.SEVERE, "Failed to forward the response for " + first.topic() + "-"
+					+ first.kafkaPartition() + " at offset " + first.kafkaOffset(), e);
+		}
+	}
+
+	@Override
+	public void onFailure(List<SinkRecord> records, Throwable error) {
+		// nothing to forward
+	}
+
+	/**
+	 * Block until every response forwarded so far is stored.
+	 */
+	void flush() {
+		try {
+			sink.flush();
+		} catch (IOException e) {
+			throw new ConnectException("Failed to store forwarded responses", e);
+		}
+	}
+
+	@Override
+	public void close() {
+		try {
+			sink.close();
+		} catch (IOException e) {
+			LOGGER.log(Level.WARNING, "Failed to close the response sink", e);
+		}
+	}
+
+}
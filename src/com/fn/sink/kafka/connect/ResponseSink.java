@@ -0,0 +1,28 @@
+package com.fn.sink.kafka.connect;
+
+import com.fn.sink.kafka.connect.http.FnResponse;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.kafka.connect.sink.SinkRecord;
+
+/**
+ * Where a {@link ResponseForwarder} writes function responses. Called from
+ * whichever thread completed the invocation.
+ */
+interface ResponseSink extends Closeable {
+
+	/**
+	 * @param records The records the function was invoked with
+	 * @param response Its response, with a non-empty body
+	 */
+	void write(List<SinkRecord> records, FnResponse response) throws IOException;
+
+	/**
+	 * Block until every response written so far is stored.
+	 */
+	void flush() throws IOException;
+
+}
@@ -0,0 +1,74 @@
+package com.fn.sink.kafka.connect;
+
+import com.fn.sink.kafka.connect.http.FnInvocationException;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides which failed invocations are worth retrying and how long to wait
+ * before doing so.
+ *
+ * <ul>
+ * <li>429 and 5xx responses, except 501 and 505, and I/O errors are retriable.
+ * So are calls refused by an open circuit breaker, after the time it stays
+ * open</li>
+ * <li>any other response, or an error raised before the request was sent
+ * (signing, serialization), is fatal</li>
+ * </ul>
+ */
+class RetryPolicy {
+
+	private final int maxAttempts;
+	private final long backoffMs;
+	private final long maxBackoffMs;
+
+	RetryPolicy(int maxAttempts, long backoffMs, long maxBackoffMs) {
+		this.maxAttempts = maxAttempts;
+		this.backoffMs = backoffMs;
+		this.maxBackoffMs = maxBackoffMs;
+	}
+
+	int maxAttempts() {
+		return maxAttempts;
+	}
+
+	long maxBackoffMs() {
+		return maxBackoffMs;
+	}
+
+	boolean isRetriable(Throwable error) {
+		if (error instanceof FnInvocationException) {
+			int status = ((FnInvocationException) error).getStatusCode();
+			return status == 429 || (status >= 500 && status != 501 && status != 505);
+		}
+		return error instanceof IOException;
+	}
+
+	/**
+	 * @param attempt The attempt that just failed, starting at 1
+	 * @param error Why it failed
+	 * @return the delay before the next attempt: what the function asked for
+	 * through Retry-After, otherwise an exponential backoff with jitter
+	 */
+	long backoffMs(int attempt, Throwable error) {
+		long retryAfterMs = retryAfterMs(error);
+		if (retryAfterMs >= 0) {
+			return retryAfterMs;
+		}
+		long ceiling = Math.min(maxBackoffMs, backoffMs << Math.min(attempt - 1, 30));
+		// equal jitter: keep half of the delay, randomize the other half
+		return ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
+	}
+
+	static long retryAfterMs(Throwable error) {
+		if (error instanceof FnInvocationException) {
+			return ((FnInvocationException) error).getRetryAfterMs();
+		}
+		if (error instanceof CircuitOpenException) {
+			return ((CircuitOpenException) error).getRetryAfterMs();
+		}
+		return -1;
+	}
+
+}
@@ -0,0 +1,85 @@
+package com.fn.sink.kafka.connect;
+
+import com.fn.sink.kafka.connect.http.FnResponse;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+
+/**
+ * Retries failed invocations according to a {@link RetryPolicy}. Retries are
+ * scheduled rather than slept on, so no thread waits out the backoff. The
+ * returned future always fails with an {@link InvocationFailedException}.
+ *
+ * <p>
+ * A Retry-After longer than the maximum backoff ends local retries early:
+ * the task hands the records back to the framework instead, see
+ * {@link InvocationFailures}.
+ * </p>
+ */
+class RetryingInvoker implements FnInvoker {
+
+	private final FnInvoker delegate;
+	private final RetryPolicy policy;
+	private final ScheduledExecutorService scheduler;
+
+	RetryingInvoker(FnInvoker delegate, RetryPolicy policy, ScheduledExecutorService scheduler) {
+		this.delegate = delegate;
+		this.policy = policy;
+		this.scheduler = scheduler;
+	}
+
+	@Override
+	public CompletableFuture<FnResponse> invoke(String functionUrl, HttpEntity payload, Header[] headers) {
+		CompletableFuture<FnResponse> result = new CompletableFuture<>();
+		attempt(functionUrl, payload, headers, 1, System.nanoTime(), result);
+		return result;
+	}
+
+	private void attempt(String functionUrl, HttpEntity payload, Header[] headers, int attempt, long startNanos,
+			CompletableFuture<FnResponse> result) {
+		CompletableFuture<FnResponse> invocation;
+		try {
+			invocation = delegate.invoke(functionUrl, payload, headers);
+		} catch (RuntimeException e) {
+			result.completeExceptionally(new InvocationFailedException(e, attempt, false, elapsedMs(startNanos)));
+			return;
+		}
+		invocation.whenComplete((response, error) -> {
+			if (error == null) {
+				result.complete(response);
+				return;
+			}
+			Throwable cause = unwrap(error);
+			boolean retriable = policy.isRetriable(cause);
+			long backoffMs = policy.backoffMs(attempt, cause);
+			if (!retriable || attempt >= policy.maxAttempts() || backoffMs > policy.maxBackoffMs()) {
+				result.completeExceptionally(new InvocationFailedException(cause, attempt, retriable, elapsedMs(startNanos)));
+				return;
+			}
+			try {
+				scheduler.schedule(() -> attempt(functionUrl, payload, headers, attempt + 1, startNanos, result), backoffMs, TimeUnit.MILLISECONDS);
+			} catch (RuntimeException e) {
+				// scheduler shut down, the task is stopping
+				result.completeExceptionally(new InvocationFailedException(cause, attempt, retriable, elapsedMs(startNanos)));
+			}
+		});
+	}
+
+	private static long elapsedMs(long startNanos) {
+		return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+	}
+
+	static Throwable unwrap(Throwable error) {
+		while ((error instanceof CompletionException || error instanceof ExecutionException) && error.getCause() != null) {
+			error = error.getCause();
+		}
+		return error;
+	}
+
+}
@@ -0,0 +1,32 @@
+package com.fn.sink.kafka.connect;
+
+import com.fn.sink.kafka.connect.http.FnResponse;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+
+/**
+ * Reports the duration and outcome of every attempt to an
+ * {@link InFlightLimiter}. Sits below {@link RetryingInvoker} so that
+ * throttled attempts are seen even when a retry eventually succeeds.
+ */
+class SamplingInvoker implements FnInvoker {
+
+	private final FnInvoker delegate;
+	private final InFlightLimiter limiter;
+
+	SamplingInvoker(FnInvoker delegate, InFlightLimiter limiter) {
+		this.delegate = delegate;
+		this.limiter = limiter;
+	}
+
+	@Override
+	public CompletableFuture<FnResponse> invoke(String functionUrl, HttpEntity payload, Header[] headers) {
+		long start = System.nanoTime();
+		return delegate.invoke(functionUrl, payload, headers).whenComplete((response, error) ->
+				limiter.onSample(System.nanoTime() - start, error == null ? null : RetryingInvoker.unwrap(error)));
+	}
+
+}
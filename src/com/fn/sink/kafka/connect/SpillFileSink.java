@@ -0,0 +1,93 @@
+package com.fn.sink.kafka.connect;
+
+import com.google.gson.JsonObject;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.List;
+
+import org.apache.kafka.connect.errors.DataException;
+import org.apache.kafka.connect.header.Header;
+import org.apache.kafka.connect.sink.SinkRecord;
+
+/**
+ * Appends failed records to a local file, one JSON object per line, when the
+ * runtime has no errant record reporter. The payload is kept as the base64
+ * of the bytes that were sent to the function.
+ */
+class SpillFileSink implements DeadLetterSink {
+
+	private final Path path;
+	private final FileOutputStream file;
+	private final BufferedWriter writer;
+	private final PayloadSerializer serializer = new PayloadSerializer();
+
+	SpillFileSink(Path path) throws IOException {
+		Files.createDirectories(path.toAbsolutePath().getParent());
+		this.path = path;
+		this.file = new FileOutputStream(path.toFile(), true);
+		this.writer = new BufferedWriter(new OutputStreamWriter(file, StandardCharsets.UTF_8));
+	}
+
+	Path path() {
+		return path;
+	}
+
+	@Override
+	public void write(List<DeadLetterQueue.DeadLetter> letters) throws IOException {
+		for (DeadLetterQueue.DeadLetter letter : letters) {
+			writer.write(toJson(letter.record()).toString());
+			writer.newLine();
+		}
+		writer.flush();
+	}
+
+	@Override
+	public void flush() throws IOException {
+		writer.flush();
+		file.getFD().sync();
+	}
+
+	@Override
+	public void close() throws IOException {
+		writer.close();
+	}
+
+	private JsonObject toJson(SinkRecord record) {
+		JsonObject json = new JsonObject();
+		json.addProperty("topic", record.topic());
+		json.addProperty("partition", record.kafkaPartition());
+		json.addProperty("offset", record.kafkaOffset());
+		json.addProperty("timestamp", record.timestamp());
+		if (record.key() != null) {
+			json.addProperty("key", record.key() instanceof byte[]
+					? new String((byte[]) record.key(), StandardCharsets.UTF_8) : record.key().toString());
+		}
+		JsonObject headers = new JsonObject();
+		for (Header header : record.headers()) {
+			headers.addProperty(header.key(), header.value() == null ? null : header.value().toString());
+		}
+		json.add("headers", headers);
+		if (record.value() != null) {
+			try {
+				json.addProperty("value_base64", base64(serializer.serialize(record)));
+			} catch (DataException e) {
+				// the reason it is here
+				json.addProperty("value", record.value().toString());
+			}
+		}
+		return json;
+	}
+
+	private static String base64(ByteBuffer value) {
+		return new String(Base64.getEncoder().encode(value).array(), StandardCharsets.ISO_8859_1);
+	}
+
+}
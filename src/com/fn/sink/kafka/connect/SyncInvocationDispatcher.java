@@ -0,0 +1,42 @@
+package com.fn.sink.kafka.connect;
+
+import com.fn.sink.kafka.connect.http.FnResponse;
+
+import java.util.List;
+import java.util.concurrent.CompletionException;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.kafka.connect.sink.SinkRecord;
+
+/**
+ * Invokes the function on the calling thread, one record after another.
+ */
+class SyncInvocationDispatcher implements InvocationDispatcher {
+
+	private final FnInvoker invoker;
+	private final InvocationListener listener;
+
+	SyncInvocationDispatcher(FnInvoker invoker, InvocationListener listener) {
+		this.invoker = invoker;
+		this.listener = listener;
+	}
+
+	@Override
+	public void dispatch(List<SinkRecord> records, String functionUrl, HttpEntity payload, Header[] headers) {
+		FnResponse response;
+		try {
+			response = invoker.invoke(functionUrl, payload, headers).join();
+		} catch (CompletionException e) {
+			listener.onFailure(records, RetryingInvoker.unwrap(e));
+			return;
+		}
+		listener.onSuccess(records, response);
+	}
+
+	@Override
+	public void awaitInFlight() {
+		// every invocation has completed by the time dispatch returns
+	}
+
+}
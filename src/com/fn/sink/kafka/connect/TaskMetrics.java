@@ -0,0 +1,143 @@
+package com.fn.sink.kafka.connect;
+
+import com.fn.sink.kafka.connect.http.FnInvocationObserver;
+import com.fn.sink.kafka.connect.http.FnInvocationTrace;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.pool.ConnPoolControl;
+import org.apache.http.pool.PoolStats;
+
+/**
+ * A task's metrics, registered as MBeans: its put calls, its connection pool,
+ * and {@link InvocationMetrics} for all invocations ({@code
+ * type=invocation-metrics}) and per function URL (with an {@code endpoint}
+ * key), the latter registered on first use.
+ */
+class TaskMetrics implements TaskMetricsMBean, FnInvocationObserver {
+
+	private final InvocationMetrics all = new InvocationMetrics();
+	private final ConcurrentMap<String, InvocationMetrics> endpoints = new ConcurrentHashMap<>();
+	private final Function<String, InvocationMetrics> registerEndpoint;
+	private final LogLinearHistogram putBatchSizes = new LogLinearHistogram();
+	private final Meter records = new Meter();
+	private volatile ConnPoolControl<HttpRoute> pool;
+	private volatile long warmupMs;
+
+	TaskMetrics(FnMBeans mbeans) {
+		this.registerEndpoint = endpoint -> {
+			InvocationMetrics metrics = new InvocationMetrics();
+			mbeans.register("invocation-metrics", endpoint, metrics);
+			return metrics;
+		};
+		mbeans.register("task-metrics", this);
+		mbeans.register("invocation-metrics", all);
+	}
+
+	/**
+	 * @param pool The HTTP connection pool whose usage is reported
+	 */
+	void monitor(ConnPoolControl<HttpRoute> pool) {
+		this.pool = pool;
+	}
+
+	void onWarmup(long elapsedMs) {
+		warmupMs = elapsedMs;
+	}
+
+	void onPut(int size) {
+		putBatchSizes.record(size);
+		records.mark(size);
+	}
+
+	@Override
+	public void started(String endpoint) {
+		all.started();
+		endpoints.computeIfAbsent(endpoint, registerEndpoint).started();
+	}
+
+	@Override
+	public void completed(FnInvocationTrace trace) {
+		all.completed(trace);
+		endpoints.computeIfAbsent(trace.getEndpoint(), registerEndpoint).completed(trace);
+	}
+
+	@Override
+	public long getPutCount() {
+		return putBatchSizes.count();
+	}
+
+	@Override
+	public long getRecordCount() {
+		return records.count();
+	}
+
+	@Override
+	public double getRecordRate() {
+		return records.oneMinuteRate();
+	}
+
+	@Override
+	public double getPutBatchSizeP50() {
+		return putBatchSizes.percentile(0.5);
+	}
+
+	@Override
+	public double getPutBatchSizeP99() {
+		return putBatchSizes.percentile(0.99);
+	}
+
+	@Override
+	public double getPutBatchSizeMax() {
+		return putBatchSizes.max();
+	}
+
+	@Override
+	public double getPutBatchSizeMean() {
+		return putBatchSizes.mean();
+	}
+
+	@Override
+	public long getPoolLeased() {
+		PoolStats stats = poolStats();
+		return stats == null ? 0 : stats.getLeased();
+	}
+
+	@Override
+	public long getPoolAvailable() {
+		PoolStats stats = poolStats();
+		return stats == null ? 0 : stats.getAvailable();
+	}
+
+	@Override
+	public long getPoolPending() {
+		PoolStats stats = poolStats();
+		return stats == null ? 0 : stats.getPending();
+	}
+
+	@Override
+	public long getPoolMax() {
+		PoolStats stats = poolStats();
+		return stats == null ? 0 : stats.getMax();
+	}
+
+	@Override
+	public double getPoolUtilization() {
+		PoolStats stats = poolStats();
+		return stats == null || stats.getMax() == 0 ? 0 : (double) stats.getLeased() / stats.getMax();
+	}
+
+	@Override
+	public long getWarmupMs() {
+		return warmupMs;
+	}
+
+	private PoolStats poolStats() {
+		ConnPoolControl<HttpRoute> control = pool;
+		return control == null ? null : control.getTotalStats();
+	}
+
+}
@@ -0,0 +1,47 @@
+package com.fn.sink.kafka.connect;
+
+/**
+ * JMX view of a task's {@link TaskMetrics}: what the framework hands to put,
+ * and how busy the HTTP connection pool is.
+ */
+public interface TaskMetricsMBean {
+
+	/**
+	 * @return the number of calls to put, including empty ones
+	 */
+	long getPutCount();
+
+	long getRecordCount();
+
+	double getRecordRate();
+
+	double getPutBatchSizeP50();
+
+	double getPutBatchSizeP99();
+
+	double getPutBatchSizeMax();
+
+	double getPutBatchSizeMean();
+
+	long getPoolLeased();
+
+	long getPoolAvailable();
+
+	/**
+	 * @return the number of invocations waiting for a connection
+	 */
+	long getPoolPending();
+
+	long getPoolMax();
+
+	/**
+	 * @return leased connections as a fraction of the pool size
+	 */
+	double getPoolUtilization();
+
+	/**
+	 * @return how long the task spent warming up in start, 0 without warm-up
+	 */
+	long getWarmupMs();
+
+}
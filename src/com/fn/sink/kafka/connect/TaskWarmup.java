@@ -0,0 +1,125 @@
+package com.fn.sink.kafka.connect;
+
+import com.fn.sink.kafka.connect.http.FnPayloadEntity;
+import com.fn.sink.kafka.connect.http.FnResponse;
+import com.fn.sink.kafka.connect.http.FnSigningContextProvider;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.http.Header;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ContentType;
+
+/**
+ * Pays the one-off costs of a task's first invocations in start, before the
+ * first records arrive: the signer is exercised once per function, pooled
+ * connections (TLS handshake included) are opened to each function host and,
+ * with a warm-up payload, every function is invoked once to take its cold
+ * start. Failures are logged, the task starts regardless.
+ */
+class TaskWarmup {
+
+	/**
+	 * Opens pooled connections to a function's host, see
+	 * {@link com.fn.sink.kafka.connect.http.FnClientCommon#preconnect}.
+	 */
+	interface Connector {
+
+		/**
+		 * @return the number of connections opened
+		 */
+		int preconnect(String functionUrl, int connections, long timeoutMs) throws IOException, InterruptedException;
+
+	}
+
+	private static final Logger LOGGER = Logger.getLogger(TaskWarmup.class.getName());
+	private static final Header[] NO_HEADERS = new Header[0];
+
+	private final FnSigningContextProvider signing;
+	private final Connector connector;
+	private final FnInvoker invoker;
+
+	/**
+	 * @param invoker Sends the warm-up invocations, without retries or the
+	 * circuit breaker
+	 */
+	TaskWarmup(FnSigningContextProvider signing, Connector connector, FnInvoker invoker) {
+		this.signing = signing;
+		this.connector = connector;
+		this.invoker = invoker;
+	}
+
+	/**
+	 * @param connections Connections to open per function host, 0 for none
+	 * @param payload Body of the warm-up invocation, empty for none
+	 * @return how long the warm-up took, in milliseconds
+	 */
+	long run(Collection<String> functionUrls, int connections, String payload, long timeoutMs) {
+		long start = System.nanoTime();
+		long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+
+		for (String functionUrl : functionUrls) {
+			try {
+				signing.get().signRequest(new HttpPost(functionUrl));
+			} catch (RuntimeException e) {
+				LOGGER.log(Level.WARNING, "Failed to sign a warm-up request to " + functionUrl, e);
+			}
+		}
+
+		int opened = 0;
+		try {
+			if (connections > 0) {
+				for (String functionUrl : functionUrls) {
+					try {
+						opened += connector.preconnect(functionUrl, connections, remainingMs(deadline));
+					} catch (IOException e) {
+						LOGGER.log(Level.WARNING, "Failed to open warm-up connections to " + functionUrl, e);
+					}
+				}
+			}
+
+			int succeeded = 0;
+			if (!payload.isEmpty()) {
+				byte[] body = payload.getBytes(StandardCharsets.UTF_8);
+				Map<String, CompletableFuture<FnResponse>> invocations = new LinkedHashMap<>();
+				for (String functionUrl : functionUrls) {
+					invocations.put(functionUrl, invoker.invoke(functionUrl,
+							new FnPayloadEntity(body, ContentType.APPLICATION_JSON), NO_HEADERS));
+				}
+				for (Map.Entry<String, CompletableFuture<FnResponse>> invocation : invocations.entrySet()) {
+					try {
+						invocation.getValue().get(remainingMs(deadline), TimeUnit.MILLISECONDS);
+						succeeded++;
+					} catch (ExecutionException e) {
+						LOGGER.log(Level.WARNING, "Warm-up invocation of " + invocation.getKey() + " failed", e.getCause());
+					} catch (TimeoutException e) {
+						LOGGER.warning("Warm-up invocation of " + invocation.getKey() + " did not complete within " + timeoutMs + " ms");
+					}
+				}
+			}
+
+			long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+			LOGGER.info("Warm-up of " + functionUrls.size() + " function(s) took " + elapsedMs + " ms: " + opened
+					+ " connection(s) opened" + (payload.isEmpty() ? "" : ", " + succeeded + " invocation(s) succeeded"));
+			return elapsedMs;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		}
+	}
+
+	private static long remainingMs(long deadline) {
+		return Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+	}
+
+}
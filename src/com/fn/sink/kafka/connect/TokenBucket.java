@@ -0,0 +1,58 @@
+package com.fn.sink.kafka.connect;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A lock-free token bucket, kept as the time from which tokens can be taken
+ * again (the generic cell rate algorithm). Taking tokens pushes that time
+ * forward by their cost, starting no earlier than one second ago, so the
+ * bucket holds up to one second of tokens.
+ *
+ * <p>
+ * A request larger than the bucket is let through as soon as the bucket is
+ * full and leaves it in debt, so a large batch is delayed rather than
+ * refused forever.
+ * </p>
+ */
+class TokenBucket {
+
+	private static final long BURST_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+	private final double nanosPerToken;
+	private final AtomicLong availableAt;
+
+	/**
+	 * @param tokensPerSec Rate at which the bucket refills
+	 */
+	TokenBucket(double tokensPerSec) {
+		this.nanosPerToken = TimeUnit.SECONDS.toNanos(1) / tokensPerSec;
+		this.availableAt = new AtomicLong(System.nanoTime() - BURST_NANOS);
+	}
+
+	/**
+	 * @return true if tokens can be taken now
+	 */
+	boolean isAvailable(long nowNanos) {
+		return availableAt.get() - nowNanos <= 0;
+	}
+
+	/**
+	 * Take tokens, whether or not any are available.
+	 */
+	void take(long tokens, long nowNanos) {
+		long cost = (long) Math.ceil(tokens * nanosPerToken);
+		long current;
+		do {
+			current = availableAt.get();
+		} while (!availableAt.compareAndSet(current, Math.max(current, nowNanos - BURST_NANOS) + cost));
+	}
+
+	/**
+	 * @return nanoseconds until tokens are available again, 0 if they are now
+	 */
+	long nanosUntilAvailable(long nowNanos) {
+		return Math.max(0, availableAt.get() - nowNanos);
+	}
+
+}
@@ -2,7 +2,10 @@ package com.fn.sink.kafka.connect.http;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.Funnels;
+import com.google.common.hash.Hasher;
 import com.google.common.hash.Hashing;
+import com.google.common.io.CountingOutputStream;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
@@ -14,19 +17,48 @@ import java.nio.file.Paths;
 import java.security.Key;
 import java.security.PrivateKey;
 import java.security.spec.InvalidKeySpecException;
-import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Base64;
-import java.util.Date;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
-import java.util.TimeZone;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
+import org.apache.http.Header;
+import org.apache.http.HttpClientConnection;
 import org.apache.http.HttpEntity;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequestInterceptor;
 import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
 import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.client.utils.URIUtils;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.routing.HttpRoute;
 import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.DefaultSchemePortResolver;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.conn.SystemDefaultDnsResolver;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.ManagedNHttpClientConnectionFactory;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.NHttpClientConnection;
+import org.apache.http.nio.conn.NoopIOSessionStrategy;
+import org.apache.http.nio.conn.SchemeIOSessionStrategy;
+import org.apache.http.nio.conn.ssl.SSLIOSessionStrategy;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.apache.http.protocol.HTTP;
 
 import org.tomitribe.auth.signatures.MissingRequiredHeaderException;
 import org.tomitribe.auth.signatures.PEM;
@@ -45,15 +77,262 @@ public class FnClientCommon {
         }
     }
 
+    /**
+     * Build a long-lived, pooled client to be shared by every invocation of a
+     * task. The caller owns the client and must close it, which also shuts
+     * down the pool and its eviction thread.
+     *
+     * @param maxConnections Maximum number of pooled connections
+     * @param maxConnectionsPerRoute Maximum number of pooled connections per
+     * function host
+     * @param idleEvictionMs Close connections idle for longer than this
+     * @param connectionTtlMs Maximum lifetime of a pooled connection
+     */
+    public static CloseableHttpClient createHttpClient(int maxConnections, int maxConnectionsPerRoute,
+            long idleEvictionMs, long connectionTtlMs) {
+        return createHttpClient(createConnectionManager(maxConnections, maxConnectionsPerRoute, connectionTtlMs),
+                idleEvictionMs);
+    }
+
+    /**
+     * Build the connection pool of {@link #createHttpClient}, for callers
+     * that also monitor it.
+     *
+     * @param maxConnections Maximum number of pooled connections
+     * @param maxConnectionsPerRoute Maximum number of pooled connections per
+     * function host
+     * @param connectionTtlMs Maximum lifetime of a pooled connection
+     */
+    public static PoolingHttpClientConnectionManager createConnectionManager(int maxConnections, int maxConnectionsPerRoute,
+            long connectionTtlMs) {
+        PoolingHttpClientConnectionManager connectionManager =
+                new PoolingHttpClientConnectionManager(connectionTtlMs, TimeUnit.MILLISECONDS);
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+        return connectionManager;
+    }
+
+    /**
+     * @param connectionManager The pool, see {@link #createConnectionManager};
+     * it is shut down when the client is closed
+     * @param idleEvictionMs Close connections idle for longer than this
+     */
+    public static CloseableHttpClient createHttpClient(PoolingHttpClientConnectionManager connectionManager,
+            long idleEvictionMs) {
+        // the signer already supplies content-length, let the client set its own
+        HttpRequestInterceptor interceptor = (hr, hc) -> {
+            hr.removeHeaders(HTTP.CONTENT_LEN);
+        };
+
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setKeepAliveStrategy(DefaultConnectionKeepAliveStrategy.INSTANCE)
+                .addInterceptorFirst(interceptor)
+                .setRequestExecutor(new FnRequestExecutor())
+                .evictExpiredConnections()
+                .evictIdleConnections(idleEvictionMs, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * Build a started, non-blocking client for asynchronous invocations. As
+     * with {@link #createHttpClient}, the caller owns the client and must close
+     * it, which also stops its eviction thread.
+     *
+     * @param maxConnections Maximum number of pooled connections
+     * @param maxConnectionsPerRoute Maximum number of pooled connections per
+     * function host
+     * @param idleEvictionMs Close connections idle for longer than this
+     * @param connectionTtlMs Maximum lifetime of a pooled connection
+     */
+    public static CloseableHttpAsyncClient createAsyncHttpClient(int maxConnections, int maxConnectionsPerRoute,
+            long idleEvictionMs, long connectionTtlMs) {
+        return createAsyncHttpClient(createAsyncConnectionManager(maxConnections, maxConnectionsPerRoute, connectionTtlMs),
+                idleEvictionMs);
+    }
+
+    /**
+     * Build the connection pool and I/O reactor of
+     * {@link #createAsyncHttpClient}, for callers that also monitor it.
+     *
+     * @param maxConnections Maximum number of pooled connections
+     * @param maxConnectionsPerRoute Maximum number of pooled connections per
+     * function host
+     * @param connectionTtlMs Maximum lifetime of a pooled connection
+     */
+    public static PoolingNHttpClientConnectionManager createAsyncConnectionManager(int maxConnections, int maxConnectionsPerRoute,
+            long connectionTtlMs) {
+        // the pool's default schemes and resolvers, only the lifetime differs
+        Registry<SchemeIOSessionStrategy> strategies = RegistryBuilder.<SchemeIOSessionStrategy>create()
+                .register("http", NoopIOSessionStrategy.INSTANCE)
+                .register("https", SSLIOSessionStrategy.getDefaultStrategy())
+                .build();
+        PoolingNHttpClientConnectionManager connectionManager;
+        try {
+            connectionManager = new PoolingNHttpClientConnectionManager(new DefaultConnectingIOReactor(IOReactorConfig.DEFAULT),
+                    ManagedNHttpClientConnectionFactory.INSTANCE, strategies, DefaultSchemePortResolver.INSTANCE,
+                    SystemDefaultDnsResolver.INSTANCE, connectionTtlMs, TimeUnit.MILLISECONDS);
+        } catch (IOReactorException e) {
+            throw new IllegalStateException("Failed to start the I/O reactor", e);
+        }
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+        return connectionManager;
+    }
+
+    /**
+     * The async client has no eviction of its own, so a daemon thread closes
+     * expired and idle connections every idleEvictionMs until the client is
+     * closed.
+     *
+     * @param connectionManager The pool, see
+     * {@link #createAsyncConnectionManager}; it is shut down when the client
+     * is closed
+     * @param idleEvictionMs Close connections idle for longer than this
+     */
+    public static CloseableHttpAsyncClient createAsyncHttpClient(PoolingNHttpClientConnectionManager connectionManager,
+            long idleEvictionMs) {
+        // the signer already supplies content-length, let the client set its own
+        HttpRequestInterceptor interceptor = (hr, hc) -> {
+            hr.removeHeaders(HTTP.CONTENT_LEN);
+        };
+
+        CloseableHttpAsyncClient client = HttpAsyncClients.custom()
+                .setConnectionManager(connectionManager)
+                .setKeepAliveStrategy(DefaultConnectionKeepAliveStrategy.INSTANCE)
+                .addInterceptorFirst(interceptor)
+                .build();
+        client.start();
+
+        Thread evictor = new Thread(() -> {
+            try {
+                while (client.isRunning()) {
+                    Thread.sleep(idleEvictionMs);
+                    connectionManager.closeExpiredConnections();
+                    connectionManager.closeIdleConnections(idleEvictionMs, TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "fn-async-connection-evictor");
+        evictor.setDaemon(true);
+        evictor.start();
+        return client;
+    }
+
+    /**
+     * Open connections to a function's host, TLS handshake included, and
+     * return them to the pool before the first invocation needs them. Stops at
+     * the pool's per-route limit.
+     *
+     * @param connectionManager The pool of a client from
+     * {@link #createHttpClient}
+     * @param endpoint The function URL; only its host is connected to
+     * @param connections Number of connections the host should have
+     * @param timeoutMs Overall time allowed
+     * @return the number of connections opened
+     * @throws IOException if a connection fails
+     */
+    public static int preconnect(PoolingHttpClientConnectionManager connectionManager, String endpoint, int connections,
+            long timeoutMs) throws IOException, InterruptedException {
+        HttpRoute route = routeTo(endpoint);
+        int wanted = Math.min(connections, connectionManager.getMaxPerRoute(route));
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        // hold every connection until all are leased, or the pool hands the same one back
+        List<HttpClientConnection> leased = new ArrayList<>();
+        int opened = 0;
+        try {
+            while (leased.size() < wanted) {
+                long remainingMs = Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+                ConnectionRequest request = connectionManager.requestConnection(route, null);
+                HttpClientConnection connection;
+                try {
+                    connection = request.get(remainingMs, TimeUnit.MILLISECONDS);
+                } catch (ExecutionException e) {
+                    throw new IOException("Failed to lease a connection to " + route.getTargetHost(), e.getCause());
+                }
+                leased.add(connection);
+                if (!connection.isOpen()) {
+                    HttpClientContext context = HttpClientContext.create();
+                    connectionManager.connect(connection, route, (int) Math.min(remainingMs, Integer.MAX_VALUE), context);
+                    connectionManager.routeComplete(connection, route, context);
+                    opened++;
+                }
+            }
+        } finally {
+            for (HttpClientConnection connection : leased) {
+                connectionManager.releaseConnection(connection, null, 0, TimeUnit.MILLISECONDS);
+            }
+        }
+        return opened;
+    }
+
+    /**
+     * As {@link #preconnect(PoolingHttpClientConnectionManager, String, int, long)},
+     * for the pool of a client from {@link #createAsyncHttpClient}. The TLS
+     * handshake completes on the I/O reactor after the connections are
+     * returned to the pool.
+     */
+    public static int preconnect(PoolingNHttpClientConnectionManager connectionManager, String endpoint, int connections,
+            long timeoutMs) throws IOException, InterruptedException {
+        HttpRoute route = routeTo(endpoint);
+        int wanted = Math.min(connections, connectionManager.getMaxPerRoute(route));
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        List<Future<NHttpClientConnection>> requests = new ArrayList<>();
+        for (int i = 0; i < wanted; i++) {
+            requests.add(connectionManager.requestConnection(route, null, (int) Math.min(timeoutMs, Integer.MAX_VALUE),
+                    timeoutMs, TimeUnit.MILLISECONDS, null));
+        }
+        IOException failure = null;
+        int opened = 0;
+        for (Future<NHttpClientConnection> request : requests) {
+            NHttpClientConnection connection;
+            try {
+                connection = request.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (ExecutionException | TimeoutException e) {
+                request.cancel(true);
+                if (failure == null) {
+                    failure = new IOException("Failed to connect to " + route.getTargetHost(),
+                            e instanceof ExecutionException ? e.getCause() : e);
+                }
+                continue;
+            }
+            try {
+                if (!connectionManager.isRouteComplete(connection)) {
+                    HttpClientContext context = HttpClientContext.create();
+                    connectionManager.startRoute(connection, route, context);
+                    connectionManager.routeComplete(connection, route, context);
+                    opened++;
+                }
+            } finally {
+                connectionManager.releaseConnection(connection, null, 0, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return opened;
+    }
+
+    /**
+     * The route the clients plan for an endpoint: direct, with the scheme's
+     * default port filled in.
+     */
+    private static HttpRoute routeTo(String endpoint) throws IOException {
+        HttpHost host = URIUtils.extractHost(URI.create(endpoint));
+        if (host == null) {
+            throw new IOException("No host in " + endpoint);
+        }
+        HttpHost target = new HttpHost(host.getHostName(), DefaultSchemePortResolver.INSTANCE.resolve(host), host.getSchemeName());
+        return new HttpRoute(target, null, "https".equalsIgnoreCase(target.getSchemeName()));
+    }
+
     static class RequestSigner {
 
-        private static final SimpleDateFormat DATE_FORMAT;
         private static final String SIGNATURE_ALGORITHM = "rsa-sha256";
         private static final Map<String, List<String>> REQUIRED_HEADERS;
 
         static {
-            DATE_FORMAT = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
-            DATE_FORMAT.setTimeZone(TimeZone.getTimeZone("GMT"));
             REQUIRED_HEADERS = ImmutableMap.<String, List<String>>builder()
                     .put("get", ImmutableList.of("date", "(request-target)", "host"))
                     .put("head", ImmutableList.of("date", "(request-target)", "host"))
@@ -98,8 +377,8 @@ public class FnClientCommon {
          *
          * <ol>
          * <li>If missing, insert the Date header (RFC 2822).</li>
-         * <li>If PUT or POST, insert any missing content-type, content-length,
-         * x-content-sha256</li>
+         * <li>If PUT or POST, insert any missing content-type (taken from the
+         * entity when it declares one), content-length, x-content-sha256</li>
          * <li>Verify that all headers to be signed are present.</li>
          * <li>Set the request's Authorization header to the computed
          * signature.</li>
@@ -118,7 +397,7 @@ public class FnClientCommon {
 
             // supply date if missing
             if (!request.containsHeader("date")) {
-                request.addHeader("date", DATE_FORMAT.format(new Date()));
+                request.addHeader("date", FnDateHeader.now());
             }
 
             // supply host if mossing
@@ -129,16 +408,42 @@ public class FnClientCommon {
             // supply content-type, content-length, and x-content-sha256 if missing (PUT and POST only)
             if (method.equals("put") || method.equals("post")) {
                 if (!request.containsHeader("content-type")) {
-                    request.addHeader("content-type", "application/json");
+                    HttpEntity entity = ((HttpEntityEnclosingRequestBase) request).getEntity();
+                    Header contentType = entity == null ? null : entity.getContentType();
+                    request.addHeader("content-type", contentType == null ? "application/json" : contentType.getValue());
                 }
 
                 if (!request.containsHeader("x-content-sha256") || !request.containsHeader("content-length")) {
-                    byte[] body = getRequestBody((HttpEntityEnclosingRequestBase) request);
+                    HttpEntityEnclosingRequestBase enclosingRequest = (HttpEntityEnclosingRequestBase) request;
+                    HttpEntity entity = enclosingRequest.getEntity();
+                    long contentLength;
+                    String sha256;
+                    if (entity instanceof FnPayloadEntity) {
+                        // hash the payload in place
+                        FnPayloadEntity payload = (FnPayloadEntity) entity;
+                        contentLength = payload.getContentLength();
+                        sha256 = calculateSHA256(payload.array(), payload.offset(), (int) contentLength);
+                    } else if (entity != null && entity.isRepeatable()) {
+                        // stream the body through the digest rather than buffering it
+                        Hasher hasher = Hashing.sha256().newHasher();
+                        CountingOutputStream counter = new CountingOutputStream(Funnels.asOutputStream(hasher));
+                        try {
+                            entity.writeTo(counter);
+                        } catch (IOException e) {
+                            throw new RuntimeException("Failed to hash request body", e);
+                        }
+                        contentLength = counter.getCount();
+                        sha256 = Base64.getEncoder().encodeToString(hasher.hash().asBytes());
+                    } else {
+                        byte[] body = getRequestBody(enclosingRequest);
+                        contentLength = body.length;
+                        sha256 = calculateSHA256(body, 0, body.length);
+                    }
                     if (!request.containsHeader("content-length")) {
-                        request.addHeader("content-length", Integer.toString(body.length));
+                        request.addHeader("content-length", Long.toString(contentLength));
                     }
                     if (!request.containsHeader("x-content-sha256")) {
-                        request.addHeader("x-content-sha256", calculateSHA256(body));
+                        request.addHeader("x-content-sha256", sha256);
                     }
                 }
 
@@ -155,7 +460,7 @@ public class FnClientCommon {
          * "http://www.host.com/somePath?example=path" return
          * "/somePath?example=path"
          */
-        private static String extractPath(URI uri) {
+        static String extractPath(URI uri) {
             String path = uri.getRawPath();
             String query = uri.getRawQuery();
             if (query != null && !query.trim().isEmpty()) {
@@ -176,7 +481,7 @@ public class FnClientCommon {
          *
          * @param request The request to extract headers from.
          */
-        private static Map<String, String> extractHeadersToSign(HttpRequestBase request) {
+        static Map<String, String> extractHeadersToSign(HttpRequestBase request) {
             List<String> headersToSign = REQUIRED_HEADERS.get(request.getMethod().toLowerCase());
             //System.out.println("headersToSign " + headersToSign);
             if (headersToSign == null) {
@@ -231,9 +536,11 @@ public class FnClientCommon {
          * request body
          *
          * @param body The request body to hash
+         * @param offset Start of the body within the array
+         * @param length Length of the body
          */
-        private String calculateSHA256(byte[] body) {
-            byte[] hash = Hashing.sha256().hashBytes(body).asBytes();
+        private String calculateSHA256(byte[] body, int offset, int length) {
+            byte[] hash = Hashing.sha256().hashBytes(body, offset, length).asBytes();
             return Base64.getEncoder().encodeToString(hash);
         }
 
@@ -262,7 +569,9 @@ public class FnClientCommon {
             // Replace the now-consumed body with a copy of the content stream
             byte[] body = content.toByteArray();
             if (consumed) {
-                request.setEntity(new ByteArrayEntity(body));
+                ByteArrayEntity copy = new ByteArrayEntity(body);
+                copy.setContentType(entity.getContentType());
+                request.setEntity(copy);
             }
             return body;
         }
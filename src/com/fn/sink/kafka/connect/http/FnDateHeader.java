@@ -0,0 +1,48 @@
+package com.fn.sink.kafka.connect.http;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+/**
+ * Supplies the value of the signed {@code date} header. The header has a
+ * resolution of one second, so the formatted value is cached and only
+ * recomputed when the second changes. Lock-free and safe to share between
+ * threads: a race merely formats the same second twice.
+ */
+final class FnDateHeader {
+
+    private static final DateTimeFormatter DATE_FORMAT =
+            DateTimeFormatter.ofPattern("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US).withZone(ZoneId.of("GMT"));
+
+    private static volatile Cached cached = new Cached(Long.MIN_VALUE, null);
+
+    private FnDateHeader() {
+    }
+
+    /**
+     * @return the current time formatted as an RFC 2822 date
+     */
+    static String now() {
+        long second = System.currentTimeMillis() / 1000;
+        Cached current = cached;
+        if (current.second == second) {
+            return current.value;
+        }
+        String value = DATE_FORMAT.format(Instant.ofEpochSecond(second));
+        cached = new Cached(second, value);
+        return value;
+    }
+
+    private static final class Cached {
+
+        private final long second;
+        private final String value;
+
+        private Cached(long second, String value) {
+            this.second = second;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.fn.sink.kafka.connect.http;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.nio.client.methods.HttpAsyncMethods;
+
+/**
+ * Non-blocking counterpart of {@link FnHTTPPost}. The request is signed on the
+ * calling thread and the response is completed on the client's I/O threads.
+ */
+public class FnHTTPAsyncPost {
+
+    private final FnSigningContextProvider signing;
+    private final CloseableHttpAsyncClient client;
+    private final long maxBodyBytes;
+    private final FnInvocationObserver observer;
+
+    /**
+     * @param signing Signing context shared across invocations
+     * @param client A started client shared across invocations, see
+     * {@link FnClientCommon#createAsyncHttpClient}. It is not closed by this
+     * class.
+     */
+    public FnHTTPAsyncPost(FnSigningContextProvider signing, CloseableHttpAsyncClient client) {
+        this(signing, client, FnResponseHandler.DEFAULT_MAX_BODY_BYTES);
+    }
+
+    /**
+     * @param maxBodyBytes Number of response body bytes kept, see
+     * {@link FnResponseHandler#FnResponseHandler(long)}
+     */
+    public FnHTTPAsyncPost(FnSigningContextProvider signing, CloseableHttpAsyncClient client, long maxBodyBytes) {
+        this(signing, client, maxBodyBytes, FnInvocationObserver.NONE);
+    }
+
+    /**
+     * @param observer Notified of every invocation, with its timings
+     */
+    public FnHTTPAsyncPost(FnSigningContextProvider signing, CloseableHttpAsyncClient client, long maxBodyBytes,
+            FnInvocationObserver observer) {
+        this.signing = signing;
+        this.client = client;
+        this.maxBodyBytes = maxBodyBytes;
+        this.observer = observer;
+    }
+
+    /**
+     * @return a future completed with the response body, or exceptionally
+     * with an {@link FnInvocationException} for non-2xx responses, see
+     * {@link FnResponseHandler}.
+     */
+    public CompletableFuture<FnResponse> invoke(String endpoint, HttpEntity payload) {
+        return invoke(endpoint, payload, new Header[0]);
+    }
+
+    /**
+     * @param headers Request headers added to the signed ones
+     */
+    public CompletableFuture<FnResponse> invoke(String endpoint, HttpEntity payload, Header[] headers) {
+        HttpPost request = new HttpPost(endpoint);
+        request.setEntity(payload);
+        for (Header header : headers) {
+            request.addHeader(header);
+        }
+        FnInvocationTrace trace = new FnInvocationTrace(endpoint, payload.getContentLength());
+        observer.started(endpoint);
+        try {
+            signing.get().signRequest(request);
+        } catch (RuntimeException e) {
+            trace.ended();
+            observer.completed(trace);
+            throw e;
+        }
+        trace.signed();
+
+        CompletableFuture<FnResponse> result = new CompletableFuture<>();
+        client.execute(new FnTracingRequestProducer(HttpAsyncMethods.create(request), trace),
+                new FnResponseConsumer(maxBodyBytes, trace), new FutureCallback<FnResponse>() {
+
+            @Override
+            public void completed(FnResponse response) {
+                end();
+                result.complete(response);
+            }
+
+            @Override
+            public void failed(Exception ex) {
+                end();
+                result.completeExceptionally(ex);
+            }
+
+            @Override
+            public void cancelled() {
+                end();
+                result.cancel(false);
+            }
+
+            private void end() {
+                trace.ended();
+                observer.completed(trace);
+            }
+        });
+        return result;
+    }
+
+}
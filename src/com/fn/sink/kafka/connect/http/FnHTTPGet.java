@@ -1,9 +1,7 @@
 package com.fn.sink.kafka.connect.http;
 
-import static com.fn.sink.kafka.connect.http.FnClientCommon.loadPrivateKey;
 import java.io.IOException;
 
-import java.security.PrivateKey;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -11,40 +9,32 @@ import org.apache.http.client.HttpClient;
 import org.apache.http.client.ResponseHandler;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpRequestBase;
-import org.apache.http.client.utils.HttpClientUtils;
 import org.apache.http.impl.client.BasicResponseHandler;
-import org.apache.http.impl.client.HttpClients;
 
 public class FnHTTPGet {
 
-    private String apiKey = null;
-    private String privateKeyFilename = null;
-
-    public FnHTTPGet(String tenancyOCID, String usrOCID, String publicKeyFingerprint, String privateKeyFilename) throws Exception {
-
-        this.privateKeyFilename = privateKeyFilename;
-
-        this.apiKey = (tenancyOCID + "/"
-                + usrOCID + "/"
-                + publicKeyFingerprint);
-
+    private final FnSigningContextProvider signing;
+    private final HttpClient client;
+
+    /**
+     * @param signing Signing context shared across invocations
+     * @param client A pooled client shared across invocations, see
+     * {@link FnClientCommon#createHttpClient}. It is not closed by this class.
+     */
+    public FnHTTPGet(FnSigningContextProvider signing, HttpClient client) {
+        this.signing = signing;
+        this.client = client;
     }
 
     public <T> T invoke(String endpoint, ResponseHandler<? extends T> rh) {
-        PrivateKey privateKey = loadPrivateKey(privateKeyFilename);
-        FnClientCommon.RequestSigner signer = new FnClientCommon.RequestSigner(apiKey, privateKey);
-
         HttpRequestBase request = new HttpGet(endpoint);
-        signer.signRequest(request);
+        signing.get().signRequest(request);
 
-        HttpClient client = HttpClients.createDefault();
         T result = null;
         try {
             result = client.execute(request, rh);
         } catch (IOException ex) {
             Logger.getLogger(FnHTTPGet.class.getName()).log(Level.SEVERE, null, ex);
-        } finally {
-            HttpClientUtils.closeQuietly(client);
         }
         return result;
     }
@@ -53,4 +43,4 @@ public class FnHTTPGet {
         return invoke(endpoint, new BasicResponseHandler());
     }
 
-}
\ No newline at end of file
+}
@@ -1,62 +1,75 @@
 package com.fn.sink.kafka.connect.http;
 
-import static com.fn.sink.kafka.connect.http.FnClientCommon.loadPrivateKey;
-import java.security.PrivateKey;
-import java.util.logging.Level;
-import java.util.logging.Logger;
+import java.io.IOException;
 
+import org.apache.http.Header;
 import org.apache.http.HttpEntity;
-import org.apache.http.HttpRequestInterceptor;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.ResponseHandler;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpRequestBase;
-import org.apache.http.client.utils.HttpClientUtils;
+import org.apache.http.client.protocol.HttpClientContext;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.BasicResponseHandler;
-import org.apache.http.impl.client.HttpClients;
-import org.apache.http.protocol.HTTP;
 
 public class FnHTTPPost {
 
-    private String apiKey = null;
-    private String privateKeyFilename = null;
-
-    public FnHTTPPost(String tenancyOCID, String usrOCID, String publicKeyFingerprint, String privateKeyFilename) throws Exception {
-
-        this.privateKeyFilename = privateKeyFilename;
-
-        this.apiKey = (tenancyOCID + "/"
-                + usrOCID + "/"
-                + publicKeyFingerprint);
+    private final FnSigningContextProvider signing;
+    private final HttpClient client;
+    private final FnInvocationObserver observer;
+
+    /**
+     * @param signing Signing context shared across invocations
+     * @param client A pooled client shared across invocations, see
+     * {@link FnClientCommon#createHttpClient}. It is not closed by this class.
+     */
+    public FnHTTPPost(FnSigningContextProvider signing, HttpClient client) {
+        this(signing, client, FnInvocationObserver.NONE);
+    }
 
+    /**
+     * @param observer Notified of every invocation, with its timings
+     */
+    public FnHTTPPost(FnSigningContextProvider signing, HttpClient client, FnInvocationObserver observer) {
+        this.signing = signing;
+        this.client = client;
+        this.observer = observer;
     }
 
-    public <T> T invoke(String endpoint, HttpEntity payload, ResponseHandler<? extends T> rh) {
-        PrivateKey privateKey = loadPrivateKey(privateKeyFilename);
-        FnClientCommon.RequestSigner signer = new FnClientCommon.RequestSigner(apiKey, privateKey);
+    /**
+     * @throws IOException if the request fails or, depending on the handler,
+     * the function returns an error; see {@link FnResponseHandler}
+     */
+    public <T> T invoke(String endpoint, HttpEntity payload, ResponseHandler<? extends T> rh) throws IOException {
+        return invoke(endpoint, payload, new Header[0], rh);
+    }
 
+    /**
+     * @param headers Request headers added to the signed ones
+     */
+    public <T> T invoke(String endpoint, HttpEntity payload, Header[] headers, ResponseHandler<? extends T> rh) throws IOException {
         HttpRequestBase request = new HttpPost(endpoint);
         ((HttpPost) request).setEntity(payload);
-        signer.signRequest(request);
-
-        HttpRequestInterceptor interceptor = (hr, hc) -> {
-            hr.removeHeaders(HTTP.CONTENT_LEN);
-        };
-
-        HttpClient client = HttpClients.custom()
-                .addInterceptorFirst(interceptor)
-                .build();
-
-        T result = null;
+        for (Header header : headers) {
+            request.addHeader(header);
+        }
+        FnInvocationTrace trace = new FnInvocationTrace(endpoint, payload == null ? 0 : payload.getContentLength());
+        observer.started(endpoint);
         try {
-            result = client.execute(request, rh);
-        } catch (Exception ex) {
-            Logger.getLogger(FnHTTPPost.class.getName()).log(Level.SEVERE, null, ex);
+            signing.get().signRequest(request);
+            trace.signed();
+
+            HttpClientContext context = HttpClientContext.create();
+            context.setAttribute(FnInvocationTrace.ATTRIBUTE, trace);
+            T result = client.execute(request, rh, context);
+            if (result instanceof FnResponse) {
+                trace.received(((FnResponse) result).getLength());
+            }
+            return result;
         } finally {
-            HttpClientUtils.closeQuietly(client);
+            trace.ended();
+            observer.completed(trace);
         }
-        return result;
     }
 
     public <T> T invoke(String endpoint, String payload, ResponseHandler<? extends T> rh) throws Exception {
@@ -67,4 +80,4 @@ public class FnHTTPPost {
         return invoke(endpoint, new StringEntity(payload), new BasicResponseHandler());
     }
 
-}
\ No newline at end of file
+}
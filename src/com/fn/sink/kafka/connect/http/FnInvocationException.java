@@ -0,0 +1,34 @@
+package com.fn.sink.kafka.connect.http;
+
+import org.apache.http.client.HttpResponseException;
+
+/**
+ * A non-2xx response from the function endpoint, carrying what the caller
+ * needs to decide whether and when to retry.
+ */
+public class FnInvocationException extends HttpResponseException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long retryAfterMs;
+
+    /**
+     * @param statusCode HTTP status of the response
+     * @param reasonPhrase HTTP reason phrase of the response
+     * @param retryAfterMs Delay requested through the Retry-After header, or
+     * -1 when absent
+     */
+    public FnInvocationException(int statusCode, String reasonPhrase, long retryAfterMs) {
+        super(statusCode, reasonPhrase);
+        this.retryAfterMs = retryAfterMs;
+    }
+
+    /**
+     * @return the delay requested through the Retry-After header, or -1 when
+     * absent
+     */
+    public long getRetryAfterMs() {
+        return retryAfterMs;
+    }
+
+}
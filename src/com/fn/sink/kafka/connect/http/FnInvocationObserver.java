@@ -0,0 +1,29 @@
+package com.fn.sink.kafka.connect.http;
+
+/**
+ * Notified of every HTTP invocation made by {@link FnHTTPPost} and
+ * {@link FnHTTPAsyncPost}, retries included, on the thread that starts or
+ * completes it. Must not block.
+ */
+public interface FnInvocationObserver {
+
+    FnInvocationObserver NONE = new FnInvocationObserver() {
+
+        @Override
+        public void started(String endpoint) {
+        }
+
+        @Override
+        public void completed(FnInvocationTrace trace) {
+        }
+    };
+
+    void started(String endpoint);
+
+    /**
+     * @param trace Timings and outcome of the invocation, whether it
+     * succeeded or not
+     */
+    void completed(FnInvocationTrace trace);
+
+}
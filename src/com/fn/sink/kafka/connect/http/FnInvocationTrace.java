@@ -0,0 +1,102 @@
+package com.fn.sink.kafka.connect.http;
+
+import org.apache.http.HttpResponse;
+
+/**
+ * Timings and outcome of one HTTP invocation, filled in as it progresses and
+ * handed to an {@link FnInvocationObserver} once it completes. Phases the
+ * invocation did not reach are reported as -1.
+ */
+public class FnInvocationTrace {
+
+    /**
+     * HttpContext attribute under which the blocking client finds the trace
+     * of the request it executes.
+     */
+    static final String ATTRIBUTE = FnInvocationTrace.class.getName();
+
+    private final String endpoint;
+    private final long requestBytes;
+    private final long startNanos = System.nanoTime();
+    private long signedNanos;
+    private long connectedNanos;
+    private long sentNanos;
+    private long respondedNanos;
+    private long endNanos;
+    private int statusCode;
+    private long responseBytes;
+
+    FnInvocationTrace(String endpoint, long requestBytes) {
+        this.endpoint = endpoint;
+        this.requestBytes = Math.max(0, requestBytes);
+    }
+
+    void signed() {
+        signedNanos = System.nanoTime();
+    }
+
+    void connected() {
+        connectedNanos = System.nanoTime();
+    }
+
+    void sent() {
+        sentNanos = System.nanoTime();
+    }
+
+    void responded(HttpResponse response) {
+        respondedNanos = System.nanoTime();
+        statusCode = response.getStatusLine().getStatusCode();
+    }
+
+    void received(long bytes) {
+        responseBytes = bytes;
+    }
+
+    void ended() {
+        endNanos = System.nanoTime();
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public long getRequestBytes() {
+        return requestBytes;
+    }
+
+    public long getResponseBytes() {
+        return responseBytes;
+    }
+
+    /**
+     * @return the HTTP status, or 0 when no response was received
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public long getSigningNanos() {
+        return signedNanos == 0 ? -1 : signedNanos - startNanos;
+    }
+
+    /**
+     * @return the time from signing to the request being written, that is
+     * leasing and, for a new connection, connecting
+     */
+    public long getConnectNanos() {
+        return signedNanos == 0 || connectedNanos == 0 ? -1 : connectedNanos - signedNanos;
+    }
+
+    /**
+     * @return the time from the request being written to the response
+     * headers being received
+     */
+    public long getServerNanos() {
+        return sentNanos == 0 || respondedNanos == 0 ? -1 : respondedNanos - sentNanos;
+    }
+
+    public long getTotalNanos() {
+        return endNanos - startNanos;
+    }
+
+}
@@ -0,0 +1,86 @@
+package com.fn.sink.kafka.connect.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.ContentType;
+
+/**
+ * Repeatable entity over a region of a byte array that is never copied: the
+ * signer hashes the region in place and the client writes it straight to the
+ * socket. The array must not be modified once the entity has been created.
+ */
+public class FnPayloadEntity extends AbstractHttpEntity {
+
+    private final byte[] content;
+    private final int offset;
+    private final int length;
+
+    public FnPayloadEntity(byte[] content, ContentType contentType) {
+        this(content, 0, content.length, contentType);
+    }
+
+    public FnPayloadEntity(byte[] content, int offset, int length, ContentType contentType) {
+        if (offset < 0 || length < 0 || offset + length > content.length) {
+            throw new IndexOutOfBoundsException("offset: " + offset + " length: " + length + " array length: " + content.length);
+        }
+        this.content = content;
+        this.offset = offset;
+        this.length = length;
+        if (contentType != null) {
+            setContentType(contentType.toString());
+        }
+    }
+
+    /**
+     * Wrap the remaining bytes of a buffer. Heap buffers are shared, direct
+     * buffers are copied once.
+     */
+    public static FnPayloadEntity wrap(ByteBuffer buffer, ContentType contentType) {
+        if (buffer.hasArray()) {
+            return new FnPayloadEntity(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining(), contentType);
+        }
+        byte[] copy = new byte[buffer.remaining()];
+        buffer.duplicate().get(copy);
+        return new FnPayloadEntity(copy, contentType);
+    }
+
+    byte[] array() {
+        return content;
+    }
+
+    int offset() {
+        return offset;
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    @Override
+    public long getContentLength() {
+        return length;
+    }
+
+    @Override
+    public InputStream getContent() throws IOException {
+        return new ByteArrayInputStream(content, offset, length);
+    }
+
+    @Override
+    public void writeTo(OutputStream outstream) throws IOException {
+        outstream.write(content, offset, length);
+        outstream.flush();
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return false;
+    }
+
+}
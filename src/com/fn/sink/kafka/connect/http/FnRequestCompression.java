@@ -0,0 +1,165 @@
+package com.fn.sink.kafka.connect.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import org.apache.http.HttpEntity;
+
+/**
+ * Gzips request bodies at or above a size threshold. Compression happens
+ * before the request is signed, so the signer hashes the compressed bytes and
+ * the client sends them with {@code Content-Encoding: gzip}. Each thread keeps
+ * its own deflater, so the native deflate state is reused rather than
+ * allocated per invocation; payload arrays are deflated in place, other
+ * entities are streamed through it.
+ *
+ * <p>A body that would not get smaller is sent as it was.
+ */
+public class FnRequestCompression {
+
+    public static final String GZIP = "gzip";
+
+    // RFC 1952 member header: deflate, no flags, no mtime, unknown OS
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+    private static final int GZIP_TRAILER = 8;
+    private static final int MIN_BUFFER = 256;
+
+    private final long minBytes;
+    private final ThreadLocal<Gzip> gzip;
+
+    /**
+     * @param level Deflate level, 1 (fastest) to 9 (smallest), or -1 for the
+     * zlib default
+     * @param minBytes Bodies smaller than this are sent uncompressed
+     */
+    public FnRequestCompression(int level, long minBytes) {
+        if (level != Deflater.DEFAULT_COMPRESSION && (level < Deflater.BEST_SPEED || level > Deflater.BEST_COMPRESSION)) {
+            throw new IllegalArgumentException("Invalid compression level " + level);
+        }
+        this.minBytes = minBytes;
+        this.gzip = ThreadLocal.withInitial(() -> new Gzip(level));
+    }
+
+    /**
+     * @return A gzipped copy of the entity, or the entity itself when it is
+     * below the threshold, of unknown length, already encoded, or does not
+     * compress
+     */
+    public HttpEntity compress(HttpEntity entity) {
+        long length = entity.getContentLength();
+        if (length < minBytes || length < 0 || length >= Integer.MAX_VALUE || entity.getContentEncoding() != null) {
+            return entity;
+        }
+        FnPayloadEntity compressed;
+        try {
+            compressed = gzip.get().compress(entity, (int) length);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to compress request body", e);
+        }
+        return compressed == null ? entity : compressed;
+    }
+
+    /**
+     * Per-thread deflater and checksum. The output array belongs to the
+     * entity it ends up in, so only the deflate state is reused.
+     */
+    private static class Gzip extends OutputStream {
+
+        private final Deflater deflater;
+        private final CRC32 crc = new CRC32();
+        private byte[] out;
+        private int count;
+        private int limit;
+        private boolean overflow;
+
+        Gzip(int level) {
+            // raw deflate, the gzip header and trailer are written here
+            deflater = new Deflater(level, true);
+        }
+
+        FnPayloadEntity compress(HttpEntity entity, int length) throws IOException {
+            deflater.reset();
+            crc.reset();
+            // only worth sending if it shrinks, so the buffer never grows past limit
+            limit = length - 1;
+            if (limit < GZIP_HEADER.length + GZIP_TRAILER) {
+                return null;
+            }
+            overflow = false;
+            out = new byte[Math.min(limit, Math.max(MIN_BUFFER, length / 4))];
+            System.arraycopy(GZIP_HEADER, 0, out, 0, GZIP_HEADER.length);
+            count = GZIP_HEADER.length;
+            try {
+                if (entity instanceof FnPayloadEntity) {
+                    FnPayloadEntity payload = (FnPayloadEntity) entity;
+                    write(payload.array(), payload.offset(), length);
+                } else {
+                    entity.writeTo(this);
+                }
+                deflater.finish();
+                while (!overflow && !deflater.finished()) {
+                    deflate();
+                }
+                if (overflow || !ensureCapacity(GZIP_TRAILER)) {
+                    return null;
+                }
+                writeInt((int) crc.getValue());
+                writeInt((int) deflater.getBytesRead());
+                FnPayloadEntity compressed = new FnPayloadEntity(out, 0, count, null);
+                compressed.setContentType(entity.getContentType());
+                compressed.setContentEncoding(GZIP);
+                return compressed;
+            } finally {
+                out = null;
+            }
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (overflow) {
+                return;
+            }
+            crc.update(b, off, len);
+            deflater.setInput(b, off, len);
+            while (!overflow && !deflater.needsInput()) {
+                deflate();
+            }
+        }
+
+        private void deflate() {
+            if (!ensureCapacity(1)) {
+                overflow = true;
+                return;
+            }
+            count += deflater.deflate(out, count, out.length - count);
+        }
+
+        private boolean ensureCapacity(int bytes) {
+            if (out.length - count >= bytes) {
+                return true;
+            }
+            if (count + bytes > limit) {
+                return false;
+            }
+            out = Arrays.copyOf(out, (int) Math.min(limit, Math.max(count + bytes, 2L * out.length)));
+            return true;
+        }
+
+        private void writeInt(int value) {
+            // little-endian, as gzip requires
+            out[count++] = (byte) value;
+            out[count++] = (byte) (value >>> 8);
+            out[count++] = (byte) (value >>> 16);
+            out[count++] = (byte) (value >>> 24);
+        }
+    }
+
+}
@@ -0,0 +1,43 @@
+package com.fn.sink.kafka.connect.http;
+
+import java.io.IOException;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpException;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpRequestExecutor;
+
+/**
+ * Marks the {@link FnInvocationTrace} of a blocking request once it has a
+ * connection, once it is written and once the response headers are read.
+ */
+class FnRequestExecutor extends HttpRequestExecutor {
+
+    @Override
+    protected HttpResponse doSendRequest(HttpRequest request, HttpClientConnection conn, HttpContext context)
+            throws IOException, HttpException {
+        FnInvocationTrace trace = (FnInvocationTrace) context.getAttribute(FnInvocationTrace.ATTRIBUTE);
+        if (trace != null) {
+            trace.connected();
+        }
+        HttpResponse response = super.doSendRequest(request, conn, context);
+        if (trace != null) {
+            trace.sent();
+        }
+        return response;
+    }
+
+    @Override
+    protected HttpResponse doReceiveResponse(HttpRequest request, HttpClientConnection conn, HttpContext context)
+            throws HttpException, IOException {
+        HttpResponse response = super.doReceiveResponse(request, conn, context);
+        FnInvocationTrace trace = (FnInvocationTrace) context.getAttribute(FnInvocationTrace.ATTRIBUTE);
+        if (trace != null) {
+            trace.responded(response);
+        }
+        return response;
+    }
+
+}
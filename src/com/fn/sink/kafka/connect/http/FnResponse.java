@@ -0,0 +1,163 @@
+package com.fn.sink.kafka.connect.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A 2xx response whose body was read up to a size cap into fixed-size chunks,
+ * so that a large body is never copied into one contiguous array or String
+ * while it is being received. Bytes past the cap are consumed and counted but
+ * not kept, see {@link #isTruncated()}.
+ */
+public class FnResponse {
+
+    static final int CHUNK_SIZE = 8 * 1024;
+
+    private final int statusCode;
+    private final List<ByteBuffer> chunks;
+    private final long length;
+    private final long kept;
+
+    private FnResponse(int statusCode, List<ByteBuffer> chunks, long length, long kept) {
+        this.statusCode = statusCode;
+        this.chunks = chunks;
+        this.length = length;
+        this.kept = kept;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * @return the number of body bytes received, including any past the cap
+     */
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * @return whether the body was larger than the cap, in which case only
+     * its first bytes were kept
+     */
+    public boolean isTruncated() {
+        return kept < length;
+    }
+
+    /**
+     * Write the kept body chunk by chunk.
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        for (ByteBuffer chunk : chunks) {
+            ByteBuffer b = chunk.duplicate();
+            if (b.hasArray()) {
+                out.write(b.array(), b.arrayOffset() + b.position(), b.remaining());
+            } else {
+                byte[] copy = new byte[b.remaining()];
+                b.get(copy);
+                out.write(copy);
+            }
+        }
+    }
+
+    /**
+     * @return a copy of the kept body
+     */
+    public byte[] toByteArray() {
+        byte[] body = new byte[(int) kept];
+        int offset = 0;
+        for (ByteBuffer chunk : chunks) {
+            ByteBuffer b = chunk.duplicate();
+            int n = b.remaining();
+            b.get(body, offset, n);
+            offset += n;
+        }
+        return body;
+    }
+
+    /**
+     * @return the kept body decoded as UTF-8
+     */
+    @Override
+    public String toString() {
+        return new String(toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Accumulates a body as it is received, keeping at most maxBytes.
+     */
+    static class Builder {
+
+        private final int statusCode;
+        private final long maxBytes;
+        private final List<ByteBuffer> chunks = new ArrayList<>();
+        private ByteBuffer current;
+        private long length;
+        private long kept;
+
+        Builder(int statusCode, long maxBytes) {
+            this.statusCode = statusCode;
+            this.maxBytes = maxBytes;
+        }
+
+        void append(byte[] src, int off, int len) {
+            length += len;
+            int n = (int) Math.min(len, maxBytes - kept);
+            while (n > 0) {
+                ByteBuffer chunk = chunk();
+                int k = Math.min(n, chunk.remaining());
+                chunk.put(src, off, k);
+                off += k;
+                n -= k;
+                kept += k;
+            }
+        }
+
+        void append(ByteBuffer src) {
+            int len = src.remaining();
+            length += len;
+            int n = (int) Math.min(len, maxBytes - kept);
+            while (n > 0) {
+                ByteBuffer chunk = chunk();
+                int k = Math.min(n, chunk.remaining());
+                ByteBuffer slice = src.slice();
+                ((Buffer) slice).limit(k);
+                chunk.put(slice);
+                ((Buffer) src).position(src.position() + k);
+                n -= k;
+                kept += k;
+            }
+            ((Buffer) src).position(src.limit());
+        }
+
+        private ByteBuffer chunk() {
+            if (current == null || !current.hasRemaining()) {
+                current = ByteBuffer.allocate((int) Math.min(CHUNK_SIZE, maxBytes - kept));
+                chunks.add(current);
+            }
+            return current;
+        }
+
+        long length() {
+            return length;
+        }
+
+        FnResponse build() {
+            List<ByteBuffer> body = new ArrayList<>(chunks.size());
+            for (ByteBuffer chunk : chunks) {
+                ByteBuffer b = chunk.duplicate();
+                ((Buffer) b).flip();
+                body.add(b);
+            }
+            return new FnResponse(statusCode, Collections.unmodifiableList(body), length, kept);
+        }
+
+    }
+
+}
@@ -0,0 +1,58 @@
+package com.fn.sink.kafka.connect.http;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.client.methods.AsyncByteConsumer;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * Non-blocking counterpart of {@link FnResponseHandler}: the body is copied
+ * into an {@link FnResponse} as it arrives from the I/O reactor, up to
+ * maxBodyBytes, and non-2xx responses fail with an
+ * {@link FnInvocationException}.
+ */
+class FnResponseConsumer extends AsyncByteConsumer<FnResponse> {
+
+    private final long maxBodyBytes;
+    private final FnInvocationTrace trace;
+    private HttpResponse response;
+    private FnResponse.Builder body;
+
+    FnResponseConsumer(long maxBodyBytes, FnInvocationTrace trace) {
+        super(FnResponse.CHUNK_SIZE);
+        this.maxBodyBytes = maxBodyBytes;
+        this.trace = trace;
+    }
+
+    @Override
+    protected void onResponseReceived(HttpResponse response) {
+        this.response = response;
+        trace.responded(response);
+        int status = response.getStatusLine().getStatusCode();
+        body = new FnResponse.Builder(status, status >= 300 ? 0 : maxBodyBytes);
+    }
+
+    @Override
+    protected void onByteReceived(ByteBuffer buf, IOControl ioctrl) throws IOException {
+        body.append(buf);
+    }
+
+    @Override
+    protected FnResponse buildResult(HttpContext context) throws FnInvocationException {
+        trace.received(body.length());
+        if (response.getStatusLine().getStatusCode() >= 300) {
+            throw FnResponseHandler.failure(response);
+        }
+        return body.build();
+    }
+
+    @Override
+    protected void releaseResources() {
+        response = null;
+        body = null;
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.fn.sink.kafka.connect.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Date;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.StatusLine;
+import org.apache.http.client.ResponseHandler;
+import org.apache.http.client.utils.DateUtils;
+import org.apache.http.util.EntityUtils;
+
+/**
+ * Like {@link org.apache.http.impl.client.BasicResponseHandler}, returns the
+ * body of 2xx responses, but streams it into an {@link FnResponse} of at most
+ * maxBodyBytes instead of buffering it whole as a String, and fails with a
+ * {@link FnInvocationException} that keeps the Retry-After header.
+ */
+public class FnResponseHandler implements ResponseHandler<FnResponse> {
+
+    public static final long DEFAULT_MAX_BODY_BYTES = 1024 * 1024;
+
+    public static final FnResponseHandler INSTANCE = new FnResponseHandler(DEFAULT_MAX_BODY_BYTES);
+
+    private final long maxBodyBytes;
+
+    /**
+     * @param maxBodyBytes Number of body bytes kept, the rest is read and
+     * discarded; 0 keeps none
+     */
+    public FnResponseHandler(long maxBodyBytes) {
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    @Override
+    public FnResponse handleResponse(HttpResponse response) throws IOException {
+        StatusLine statusLine = response.getStatusLine();
+        HttpEntity entity = response.getEntity();
+        if (statusLine.getStatusCode() >= 300) {
+            EntityUtils.consume(entity);
+            throw failure(response);
+        }
+        FnResponse.Builder body = new FnResponse.Builder(statusLine.getStatusCode(), maxBodyBytes);
+        if (entity != null) {
+            try (InputStream in = entity.getContent()) {
+                byte[] buf = new byte[FnResponse.CHUNK_SIZE];
+                for (int n; (n = in.read(buf)) != -1;) {
+                    body.append(buf, 0, n);
+                }
+            }
+        }
+        return body.build();
+    }
+
+    static FnInvocationException failure(HttpResponse response) {
+        StatusLine statusLine = response.getStatusLine();
+        return new FnInvocationException(statusLine.getStatusCode(), statusLine.getReasonPhrase(),
+                retryAfterMs(response.getFirstHeader(HttpHeaders.RETRY_AFTER)));
+    }
+
+    /**
+     * Parse Retry-After, either delay-seconds or an HTTP-date.
+     *
+     * @return the requested delay, or -1 when absent or malformed
+     */
+    static long retryAfterMs(Header retryAfter) {
+        if (retryAfter == null) {
+            return -1;
+        }
+        String value = retryAfter.getValue().trim();
+        try {
+            return Math.max(0, Long.parseLong(value) * 1000);
+        } catch (NumberFormatException e) {
+            Date date = DateUtils.parseDate(value);
+            return date == null ? -1 : Math.max(0, date.getTime() - System.currentTimeMillis());
+        }
+    }
+
+}
@@ -0,0 +1,50 @@
+package com.fn.sink.kafka.connect.http;
+
+import static com.fn.sink.kafka.connect.http.FnClientCommon.loadPrivateKey;
+
+import java.security.PrivateKey;
+
+import org.apache.http.client.methods.HttpRequestBase;
+
+/**
+ * Immutable signing state for one API key: the parsed private key and the
+ * per-method signers built from it. Safe to share between invocations; a key
+ * rotation produces a new instance rather than mutating this one.
+ */
+public final class FnSigningContext {
+
+    private final String apiKey;
+    private final PrivateKey privateKey;
+    private final FnClientCommon.RequestSigner signer;
+
+    private FnSigningContext(String apiKey, PrivateKey privateKey) {
+        this.apiKey = apiKey;
+        this.privateKey = privateKey;
+        this.signer = new FnClientCommon.RequestSigner(apiKey, privateKey);
+    }
+
+    /**
+     * Read the private key from disk and build the signers for it.
+     *
+     * @param apiKey The identifier for a key uploaded through the console.
+     * @param privateKeyFilename Location of the matching .pem private key
+     */
+    public static FnSigningContext load(String apiKey, String privateKeyFilename) {
+        return new FnSigningContext(apiKey, loadPrivateKey(privateKeyFilename));
+    }
+
+    public String getApiKey() {
+        return apiKey;
+    }
+
+    public PrivateKey getPrivateKey() {
+        return privateKey;
+    }
+
+    /**
+     * @see FnClientCommon.RequestSigner#signRequest(HttpRequestBase)
+     */
+    public void signRequest(HttpRequestBase request) {
+        signer.signRequest(request);
+    }
+}
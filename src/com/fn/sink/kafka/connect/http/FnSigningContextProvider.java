@@ -0,0 +1,131 @@
+package com.fn.sink.kafka.connect.http;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Holds the current {@link FnSigningContext} for a task and swaps in a new one
+ * when the private key file changes on disk, so keys can be rotated without
+ * restarting the connector. Readers only pay for a volatile read.
+ */
+public class FnSigningContextProvider implements Closeable {
+
+    private static final Logger LOGGER = Logger.getLogger(FnSigningContextProvider.class.getName());
+
+    private final String apiKey;
+    private final Path privateKeyPath;
+    private final AtomicReference<FnSigningContext> current = new AtomicReference<>();
+    private volatile FileTime loadedModifiedTime;
+    private WatchService watchService;
+    private Thread watcher;
+
+    public FnSigningContextProvider(String tenancyOCID, String usrOCID, String publicKeyFingerprint, String privateKeyFilename) {
+
+        this.privateKeyPath = Paths.get(privateKeyFilename).toAbsolutePath();
+
+        this.apiKey = (tenancyOCID + "/"
+                + usrOCID + "/"
+                + publicKeyFingerprint);
+
+        this.loadedModifiedTime = lastModified();
+        this.current.set(FnSigningContext.load(apiKey, privateKeyFilename));
+        startWatcher();
+    }
+
+    /**
+     * @return the signing context for the most recently loaded key
+     */
+    public FnSigningContext get() {
+        return current.get();
+    }
+
+    /**
+     * Reload the key if the file changed since it was last read. A key that
+     * fails to parse (e.g. a partially written file) leaves the current
+     * context in place; the next change event will retry.
+     */
+    void reloadIfChanged() {
+        FileTime modified = lastModified();
+        if (modified == null || modified.equals(loadedModifiedTime)) {
+            return;
+        }
+        try {
+            current.set(FnSigningContext.load(apiKey, privateKeyPath.toString()));
+            loadedModifiedTime = modified;
+            LOGGER.log(Level.INFO, "Reloaded private key from {0}", privateKeyPath);
+        } catch (RuntimeException ex) {
+            LOGGER.log(Level.WARNING, "Failed to reload private key from " + privateKeyPath + ", keeping previous key", ex);
+        }
+    }
+
+    private FileTime lastModified() {
+        try {
+            return Files.getLastModifiedTime(privateKeyPath);
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    private void startWatcher() {
+        Path directory = privateKeyPath.getParent();
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            // watch the directory rather than the file: editors and secret
+            // mounts replace the file (or a symlink to it) instead of writing in place
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException ex) {
+            LOGGER.log(Level.WARNING, "Cannot watch " + directory + ", private key rotation will not be picked up", ex);
+            closeWatchService();
+            return;
+        }
+
+        watcher = new Thread(() -> {
+            try {
+                while (true) {
+                    WatchKey key = watchService.take();
+                    key.pollEvents();
+                    reloadIfChanged();
+                    if (!key.reset()) {
+                        LOGGER.log(Level.WARNING, "Stopped watching {0}", directory);
+                        return;
+                    }
+                }
+            } catch (InterruptedException | ClosedWatchServiceException ex) {
+                // closed
+            }
+        }, "fn-private-key-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    private void closeWatchService() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException ex) {
+                // ignore
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        closeWatchService();
+        if (watcher != null) {
+            watcher.interrupt();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.fn.sink.kafka.connect.http;
+
+import java.io.IOException;
+
+import org.apache.http.HttpException;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.nio.ContentEncoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.protocol.HttpAsyncRequestProducer;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * Non-blocking counterpart of {@link FnRequestExecutor}: marks the
+ * {@link FnInvocationTrace} once the request is given a connection and once
+ * it is written.
+ */
+class FnTracingRequestProducer implements HttpAsyncRequestProducer {
+
+    private final HttpAsyncRequestProducer producer;
+    private final FnInvocationTrace trace;
+
+    FnTracingRequestProducer(HttpAsyncRequestProducer producer, FnInvocationTrace trace) {
+        this.producer = producer;
+        this.trace = trace;
+    }
+
+    @Override
+    public HttpHost getTarget() {
+        return producer.getTarget();
+    }
+
+    @Override
+    public HttpRequest generateRequest() throws IOException, HttpException {
+        trace.connected();
+        return producer.generateRequest();
+    }
+
+    @Override
+    public void produceContent(ContentEncoder encoder, IOControl ioctrl) throws IOException {
+        producer.produceContent(encoder, ioctrl);
+    }
+
+    @Override
+    public void requestCompleted(HttpContext context) {
+        trace.sent();
+        producer.requestCompleted(context);
+    }
+
+    @Override
+    public void failed(Exception ex) {
+        producer.failed(ex);
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return producer.isRepeatable();
+    }
+
+    @Override
+    public void resetRequest() throws IOException {
+        producer.resetRequest();
+    }
+
+    @Override
+    public void close() throws IOException {
+        producer.close();
+    }
+
+}